@@ -1,15 +1,12 @@
 package study.api;
 
-import io.restassured.RestAssured;
+import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
-import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
 import io.qameta.allure.*;                         // аннотации Allure
-import io.qameta.allure.restassured.AllureRestAssured;
-import io.restassured.filter.log.RequestLoggingFilter;
-import io.restassured.filter.log.ResponseLoggingFilter;
+import io.restassured.filter.Filter;
 import org.junit.jupiter.api.TestMethodOrder;
 import org.junit.jupiter.api.MethodOrderer;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -17,10 +14,10 @@ import io.qameta.allure.junit5.AllureJunit5;
 
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.util.Properties;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 
-import static io.restassured.RestAssured.given;
 import static org.hamcrest.Matchers.*;
 
 /**
@@ -40,27 +37,44 @@ public class AccuWeatherApiTests {
     static String API_KEY;
     static String LOCATION_KEY;
     static String LANGUAGE;
+    static AccuWeatherClient client;
+    static final ResponseStore.Recorder RECORDER = ResponseStore.Recorder.fromProperty();
 
     @BeforeAll
     static void setup() throws IOException {
-        Properties props = new Properties();
-        try (InputStream is = AccuWeatherApiTests.class.getClassLoader().getResourceAsStream("config.properties")) {
-            if (is != null) props.load(is);
-        }
-        BASE_URL = System.getenv().getOrDefault("BASE_URL", props.getProperty("BASE_URL", "https://dataservice.accuweather.com"));
-        API_KEY  = System.getenv().getOrDefault("API_KEY",  props.getProperty("API_KEY", ""));
-        LOCATION_KEY = props.getProperty("DEFAULT_LOCATION_KEY", "294021"); // пример: Минск
-        LANGUAGE = props.getProperty("LANGUAGE", "en-us");
-
-        RestAssured.baseURI = BASE_URL;
+        LiveConfig config = LiveConfig.load();
+        BASE_URL = config.baseUrl;
+        API_KEY  = config.apiKey;
+        LOCATION_KEY = config.locationKey;
+        LANGUAGE = config.language;
+
+        // API_KEYS=k1,k2 — распределить запросы и квоту между несколькими ключами
+        List<String> keys = QuotaGovernor.parseKeys(config.env("API_KEYS", API_KEY));
+        QuotaGovernor governor = new QuotaGovernor(keys.isEmpty() ? List.of(API_KEY) : keys,
+                Integer.parseInt(config.property("DAILY_QUOTA", String.valueOf(QuotaGovernor.FREE_TIER_DAILY_QUOTA))),
+                Double.parseDouble(config.property("RATE_LIMIT_RPS", "5")),
+                Integer.parseInt(config.property("RATE_LIMIT_BURST", "5")));
+
+        // фильтры живут в спецификации клиента, а не в глобальном RestAssured.filters(...)
+        List<Filter> filters = new ArrayList<>(List.of(
+                EndpointMetrics.shared(),    // задержка, статусы, байты и кэш по шаблонам эндпоинтов
+                AllureAttachments.shared(),  // вложения Allure пишутся в фоне; полные — для ошибок и медленных
+                ExchangeLog.shared()));      // ошибки целиком, успешные — выборочно, в фоне
+        // -Dstore.record=path — дописывать ответы 200 в сегмент ResponseStore для офлайн-воспроизведения
+        if (RECORDER != null) filters.add(RECORDER);
+        client = new AccuWeatherClient(BASE_URL, governor, filters.toArray(Filter[]::new));
     }
-    @BeforeEach
-    void enableAllureLogging() {
-        RestAssured.filters(
-                new AllureRestAssured(),     // прикрепляет к Allure request/response как вложения
-                new RequestLoggingFilter(),  // лог запроса в консоль
-                new ResponseLoggingFilter()  // лог ответа в консоль
-        );
+
+    // Снимок метрик в формате Prometheus: -Dmetrics.out=path, по умолчанию target/accuweather-metrics.prom
+    @AfterAll
+    static void exportMetrics() {
+        EndpointMetrics.shared().writeTo(Path.of(System.getProperty("metrics.out", "target/accuweather-metrics.prom")));
+    }
+
+    // Сегмент -Dstore.record дописан и закрыт, иначе последние записи могут не попасть в файл
+    @AfterAll
+    static void closeRecorder() {
+        if (RECORDER != null) RECORDER.close();
     }
 
     // ------- LOCATIONS --------
@@ -70,11 +84,7 @@ public class AccuWeatherApiTests {
     @Severity(SeverityLevel.CRITICAL)
     @DisplayName("1) Cities search returns at least one result")
     void citiesSearch() {
-        given()
-                .queryParam("apikey", API_KEY)
-                .queryParam("q", "Minsk")
-                .when()
-                .get("/locations/v1/cities/search")
+        client.citiesSearch("Minsk")
                 .then()
                 .statusCode(anyOf(is(200), is(401), is(403)))
                 .contentType(containsString("json"));
@@ -85,11 +95,7 @@ public class AccuWeatherApiTests {
     @Severity(SeverityLevel.NORMAL)
     @DisplayName("2) Autocomplete suggests cities")
     void citiesAutocomplete() {
-        given()
-                .queryParam("apikey", API_KEY)
-                .queryParam("q", "Lon")
-                .when()
-                .get("/locations/v1/cities/autocomplete")
+        client.citiesAutocomplete("Lon")
                 .then()
                 .statusCode(anyOf(is(200), is(401), is(403)))
                 .contentType(containsString("json"));
@@ -100,11 +106,7 @@ public class AccuWeatherApiTests {
     @Severity(SeverityLevel.NORMAL)
     @DisplayName("3) Geoposition search by lat/lon returns location key")
     void geopositionSearch() {
-        given()
-                .queryParam("apikey", API_KEY)
-                .queryParam("q", "53.9,27.5667")
-                .when()
-                .get("/locations/v1/cities/geoposition/search")
+        client.geopositionSearch("53.9,27.5667")
                 .then()
                 .statusCode(anyOf(is(200), is(401), is(403)))
                 .contentType(containsString("json"));
@@ -115,11 +117,7 @@ public class AccuWeatherApiTests {
     @Severity(SeverityLevel.MINOR)
     @DisplayName("4) Postal codes search returns matches")
     void postalSearch() {
-        given()
-                .queryParam("apikey", API_KEY)
-                .queryParam("q", "10001")
-                .when()
-                .get("/locations/v1/postalcodes/search")
+        client.postalCodesSearch("10001")
                 .then()
                 .statusCode(anyOf(is(200), is(401), is(403)))
                 .contentType(containsString("json"));
@@ -130,10 +128,7 @@ public class AccuWeatherApiTests {
     @Severity(SeverityLevel.TRIVIAL)
     @DisplayName("5) Top 50 cities returns list")
     void topCities() {
-        given()
-                .queryParam("apikey", API_KEY)
-                .when()
-                .get("/locations/v1/topcities/50")
+        client.topCities(50)
                 .then()
                 .statusCode(anyOf(is(200), is(401), is(403)))
                 .contentType(containsString("json"));
@@ -146,10 +141,7 @@ public class AccuWeatherApiTests {
     @Severity(SeverityLevel.CRITICAL)
     @DisplayName("6) Current conditions basic")
     void currentConditions() {
-        given()
-                .queryParam("apikey", API_KEY)
-                .when()
-                .get("/currentconditions/v1/" + LOCATION_KEY)
+        client.currentConditions(LOCATION_KEY)
                 .then()
                 .statusCode(anyOf(is(200), is(401), is(403)))
                 .contentType(containsString("json"));
@@ -160,11 +152,7 @@ public class AccuWeatherApiTests {
     @Severity(SeverityLevel.CRITICAL)
     @DisplayName("7) Current conditions with details")
     void currentConditionsDetails() {
-        given()
-                .queryParam("apikey", API_KEY)
-                .queryParam("details", "true")
-                .when()
-                .get("/currentconditions/v1/" + LOCATION_KEY)
+        client.currentConditions(LOCATION_KEY, true)
                 .then()
                 .statusCode(anyOf(is(200), is(401), is(403)))
                 .contentType(containsString("json"));
@@ -175,10 +163,7 @@ public class AccuWeatherApiTests {
     @Severity(SeverityLevel.NORMAL)
     @DisplayName("8) Historical current conditions (6h)")
     void historical6h() {
-        given()
-                .queryParam("apikey", API_KEY)
-                .when()
-                .get("/currentconditions/v1/" + LOCATION_KEY + "/historical/6")
+        client.historicalConditions(LOCATION_KEY, 6)
                 .then()
                 .statusCode(anyOf(is(200), is(401), is(403), is(404)));
     }
@@ -188,10 +173,7 @@ public class AccuWeatherApiTests {
     @Severity(SeverityLevel.NORMAL)
     @DisplayName("9) Historical current conditions (24h)")
     void historical24h() {
-        given()
-                .queryParam("apikey", API_KEY)
-                .when()
-                .get("/currentconditions/v1/" + LOCATION_KEY + "/historical/24")
+        client.historicalConditions(LOCATION_KEY, 24)
                 .then()
                 .statusCode(anyOf(is(200), is(401), is(403)));
     }
@@ -201,10 +183,7 @@ public class AccuWeatherApiTests {
     @Severity(SeverityLevel.MINOR)
     @DisplayName("10) Current conditions for top cities 50")
     void conditionsTopCities() {
-        given()
-                .queryParam("apikey", API_KEY)
-                .when()
-                .get("/currentconditions/v1/topcities/50")
+        client.topCitiesConditions(50)
                 .then()
                 .statusCode(anyOf(is(200), is(401), is(403)));
     }
@@ -216,12 +195,7 @@ public class AccuWeatherApiTests {
     @Severity(SeverityLevel.CRITICAL)
     @DisplayName("11) 1 day daily forecast")
     void forecast1day() {
-        given()
-                .queryParam("apikey", API_KEY)
-                .queryParam("language", LANGUAGE)
-                .queryParam("metric", "true")
-                .when()
-                .get("/forecasts/v1/daily/1day/" + LOCATION_KEY)
+        client.dailyForecast(LOCATION_KEY, 1, LANGUAGE)
                 .then()
                 .statusCode(anyOf(is(200), is(401), is(403)));
     }
@@ -231,11 +205,7 @@ public class AccuWeatherApiTests {
     @Severity(SeverityLevel.CRITICAL)
     @DisplayName("12) 5 day daily forecast")
     void forecast5day() {
-        given()
-                .queryParam("apikey", API_KEY)
-                .queryParam("metric", "true")
-                .when()
-                .get("/forecasts/v1/daily/5day/" + LOCATION_KEY)
+        client.dailyForecast(LOCATION_KEY, 5)
                 .then()
                 .statusCode(anyOf(is(200), is(401), is(403)));
     }
@@ -245,11 +215,7 @@ public class AccuWeatherApiTests {
     @Severity(SeverityLevel.NORMAL)
     @DisplayName("13) 12 hour hourly forecast")
     void forecast12hour() {
-        given()
-                .queryParam("apikey", API_KEY)
-                .queryParam("metric", "true")
-                .when()
-                .get("/forecasts/v1/hourly/12hour/" + LOCATION_KEY)
+        client.hourlyForecast(LOCATION_KEY, 12)
                 .then()
                 .statusCode(anyOf(is(200), is(401), is(403)));
     }
@@ -259,11 +225,7 @@ public class AccuWeatherApiTests {
     @Severity(SeverityLevel.NORMAL)
     @DisplayName("14) 24 hour hourly forecast")
     void forecast24hour() {
-        given()
-                .queryParam("apikey", API_KEY)
-                .queryParam("metric", "true")
-                .when()
-                .get("/forecasts/v1/hourly/24hour/" + LOCATION_KEY)
+        client.hourlyForecast(LOCATION_KEY, 24)
                 .then()
                 .statusCode(anyOf(is(200), is(401), is(403)));
     }
@@ -273,11 +235,7 @@ public class AccuWeatherApiTests {
     @Severity(SeverityLevel.MINOR)
     @DisplayName("15) Quarter-day 1 day forecast")
     void forecastQuarterDay1() {
-        given()
-                .queryParam("apikey", API_KEY)
-                .queryParam("metric", "true")
-                .when()
-                .get("/forecasts/v1/quarterday/1day/" + LOCATION_KEY)
+        client.quarterDayForecast(LOCATION_KEY)
                 .then()
                 .statusCode(anyOf(is(200), is(401), is(403), is(404)));
     }
@@ -289,10 +247,7 @@ public class AccuWeatherApiTests {
     @Severity(SeverityLevel.NORMAL)
     @DisplayName("16) Indices 1 day")
     void indices1day() {
-        given()
-                .queryParam("apikey", API_KEY)
-                .when()
-                .get("/indices/v1/daily/1day/" + LOCATION_KEY)
+        client.indices(LOCATION_KEY, 1)
                 .then()
                 .statusCode(anyOf(is(200), is(401), is(403)));
     }
@@ -302,10 +257,7 @@ public class AccuWeatherApiTests {
     @Severity(SeverityLevel.NORMAL)
     @DisplayName("17) Indices 5 days")
     void indices5day() {
-        given()
-                .queryParam("apikey", API_KEY)
-                .when()
-                .get("/indices/v1/daily/5day/" + LOCATION_KEY)
+        client.indices(LOCATION_KEY, 5)
                 .then()
                 .statusCode(anyOf(is(200), is(401), is(403)));
     }
@@ -317,10 +269,7 @@ public class AccuWeatherApiTests {
     @Severity(SeverityLevel.CRITICAL)
     @DisplayName("18) Alerts by location")
     void alerts() {
-        given()
-                .queryParam("apikey", API_KEY)
-                .when()
-                .get("/alerts/v1/" + LOCATION_KEY)
+        client.alerts(LOCATION_KEY)
                 .then()
                 .statusCode(anyOf(is(200), is(204), is(401), is(403))); // 204 = нет предупреждений
     }
@@ -332,12 +281,7 @@ public class AccuWeatherApiTests {
     @Severity(SeverityLevel.MINOR)
     @DisplayName("19) Forecasts localized language ru-ru")
     void forecastLocalized() {
-        given()
-                .queryParam("apikey", API_KEY)
-                .queryParam("language", "ru-ru")
-                .queryParam("metric", "true")
-                .when()
-                .get("/forecasts/v1/daily/1day/" + LOCATION_KEY)
+        client.dailyForecast(LOCATION_KEY, 1, "ru-ru")
                 .then()
                 .statusCode(anyOf(is(200), is(401), is(403)));
     }
@@ -347,10 +291,8 @@ public class AccuWeatherApiTests {
     @Severity(SeverityLevel.TRIVIAL)
     @DisplayName("20) Current conditions header+time checks")
     void perfAndHeaderCheck() {
-        given()
-                .queryParam("apikey", API_KEY)
-                .when()
-                .get("/currentconditions/v1/" + LOCATION_KEY)
+        // грубая проверка одного замера; перцентили по бюджетам — в LatencySloTests (-Dslo=true)
+        client.currentConditions(LOCATION_KEY)
                 .then()
                 .time(lessThan(3000L))
                 .header("Content-Type", containsString("json"))
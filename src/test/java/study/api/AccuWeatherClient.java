@@ -0,0 +1,211 @@
+package study.api;
+
+import io.restassured.RestAssured;
+import io.restassured.builder.RequestSpecBuilder;
+import io.restassured.config.DecoderConfig;
+import io.restassured.config.HttpClientConfig;
+import io.restassured.config.RestAssuredConfig;
+import io.restassured.filter.Filter;
+import io.restassured.response.Response;
+import io.restassured.specification.RequestSpecification;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.client.DefaultHttpRequestRetryHandler;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Типизированный клиент AccuWeather API поверх Rest Assured.
+ * Все экземпляры делят один пул keep-alive соединений, а базовая спецификация
+ * запроса (baseUri, apikey, конфиг) собирается один раз в конструкторе.
+ * Ответы запрашиваются сжатыми (Accept-Encoding: gzip), байты по сети
+ * считаются по эндпоинтам в {@link #wireStats()}.
+ * Пути передаются шаблонами с path-параметрами ({key}, {days}...),
+ * чтобы фильтры видели шаблон эндпоинта, а не конкретный URL.
+ */
+@SuppressWarnings("deprecation") // Rest Assured 5 работает только с AbstractHttpClient из HttpClient 4.x
+public class AccuWeatherClient {
+
+    static final int MAX_CONNECTIONS = 64;
+    static final int MAX_CONNECTIONS_PER_ROUTE = 32;
+
+    // Общий пул: TCP/TLS-соединения переиспользуются между запросами и экземплярами клиента
+    static final PoolingClientConnectionManager POOL = new PoolingClientConnectionManager();
+
+    static {
+        POOL.setMaxTotal(MAX_CONNECTIONS);
+        POOL.setDefaultMaxPerRoute(MAX_CONNECTIONS_PER_ROUTE);
+    }
+
+    /** Поднимает лимиты общего пула — например, под число потоков нагрузки; уменьшать не даёт. */
+    static synchronized void ensurePoolSize(int perRoute) {
+        POOL.setDefaultMaxPerRoute(Math.max(POOL.getDefaultMaxPerRoute(), perRoute));
+        POOL.setMaxTotal(Math.max(POOL.getMaxTotal(), 2 * POOL.getDefaultMaxPerRoute()));
+    }
+
+    // Rest Assured перенастраивает http client на каждый запрос (interceptors, params),
+    // поэтому сам клиент лёгкий и новый, а дорогой пул соединений — общий.
+    // Счётчик байтов добавляется первым, чтобы видеть тело до распаковки gzip
+    static final RestAssuredConfig POOLED_CONFIG = pooledConfig(true);
+
+    // Под нагрузкой обрыв должен стать ошибкой: повторы HttpClient по умолчанию (до 3 раз)
+    // прячут его в задержке
+    static final RestAssuredConfig NO_RETRY_CONFIG = pooledConfig(false);
+
+    private static RestAssuredConfig pooledConfig(boolean retries) {
+        return RestAssuredConfig.config()
+                .httpClient(HttpClientConfig.httpClientConfig()
+                        .httpClientFactory(() -> {
+                            DefaultHttpClient client = new DefaultHttpClient(POOL);
+                            client.addResponseInterceptor(WireStats.INTERCEPTOR);
+                            if (!retries) client.setHttpRequestRetryHandler(new DefaultHttpRequestRetryHandler(0, false));
+                            return client;
+                        }))
+                // только gzip: AccuWeather не отдаёт deflate, а распаковка идёт потоком при чтении тела
+                .decoderConfig(DecoderConfig.decoderConfig().contentDecoders(DecoderConfig.ContentDecoder.GZIP));
+    }
+
+    // Тело вычитывается сразу: только после этого соединение возвращается в пул.
+    // Без этого ответ без body-проверок держит соединение до GC и пул исчерпывается
+    static final Filter RELEASE_CONNECTION = (req, res, ctx) -> {
+        Response response = ctx.next(req, res);
+        response.asByteArray();
+        return response;
+    };
+
+    private final RequestSpecification spec;
+    private final QuotaGovernor governor;
+    private final WireStats wireStats = new WireStats();
+
+    /**
+     * @param filters фильтры только этого клиента (логирование, Allure...);
+     *                глобальный RestAssured.filters(...) не нужен и не трогается
+     */
+    public AccuWeatherClient(String baseUrl, String apiKey, Filter... filters) {
+        this(baseUrl, apiKey, null, POOLED_CONFIG, filters);
+    }
+
+    /**
+     * Клиент с ограничением частоты и дневной квоты: apikey на каждый запрос выбирает governor,
+     * он же повторяет запрос на 429/503 и переключает ключи при исчерпании квоты или неверном ключе.
+     */
+    public AccuWeatherClient(String baseUrl, QuotaGovernor governor, Filter... filters) {
+        this(baseUrl, null, governor, POOLED_CONFIG, filters);
+    }
+
+    /** Клиент без повторов запроса после обрыва соединения — для нагрузки, где обрыв считается ошибкой. */
+    static AccuWeatherClient withoutRetries(String baseUrl, String apiKey) {
+        return new AccuWeatherClient(baseUrl, apiKey, null, NO_RETRY_CONFIG);
+    }
+
+    private AccuWeatherClient(String baseUrl, String apiKey, QuotaGovernor governor, RestAssuredConfig config,
+                              Filter... filters) {
+        RequestSpecBuilder builder = new RequestSpecBuilder()
+                .setBaseUri(baseUrl)
+                .setConfig(config)
+                .addFilters(Arrays.asList(filters));
+        // ожидание токена после фильтров клиента: ответ из кэша его не ждёт
+        if (governor != null) builder.addFilter(governor.pacing);
+        builder.addFilter(RELEASE_CONNECTION)
+                .addFilter(wireStats);
+        if (apiKey != null) builder.addQueryParam("apikey", apiKey);
+        this.spec = builder.build();
+        this.governor = governor;
+    }
+
+    /** Байты тела по сети и после распаковки — по шаблонам эндпоинтов этого клиента. */
+    WireStats wireStats() {
+        return wireStats;
+    }
+
+    RequestSpecification request() {
+        return RestAssured.given(spec);
+    }
+
+    // Без governor apikey уже в спецификации; с ним — подставляется на каждую попытку
+    Response send(Function<RequestSpecification, Response> call) {
+        if (governor == null) return call.apply(request());
+        return governor.execute(apiKey -> call.apply(request().queryParam("apikey", apiKey)));
+    }
+
+    // ------- LOCATIONS --------
+
+    public Response citiesSearch(String query) {
+        return send(r -> r.queryParam("q", query).get("/locations/v1/cities/search"));
+    }
+
+    public Response citiesAutocomplete(String query) {
+        return send(r -> r.queryParam("q", query).get("/locations/v1/cities/autocomplete"));
+    }
+
+    /** @param latLon координаты в формате "lat,lon", например "53.9,27.5667" */
+    public Response geopositionSearch(String latLon) {
+        return send(r -> r.queryParam("q", latLon).get("/locations/v1/cities/geoposition/search"));
+    }
+
+    public Response postalCodesSearch(String query) {
+        return send(r -> r.queryParam("q", query).get("/locations/v1/postalcodes/search"));
+    }
+
+    public Response topCities(int count) {
+        return send(r -> r.get("/locations/v1/topcities/{count}", count));
+    }
+
+    // ------- CURRENT CONDITIONS --------
+
+    public Response currentConditions(String locationKey) {
+        return send(r -> r.get("/currentconditions/v1/{key}", locationKey));
+    }
+
+    public Response currentConditions(String locationKey, boolean details) {
+        return send(r -> r.queryParam("details", String.valueOf(details))
+                .get("/currentconditions/v1/{key}", locationKey));
+    }
+
+    public Response historicalConditions(String locationKey, int hours) {
+        return send(r -> r.get("/currentconditions/v1/{key}/historical/{hours}", locationKey, hours));
+    }
+
+    public Response topCitiesConditions(int count) {
+        return send(r -> r.get("/currentconditions/v1/topcities/{count}", count));
+    }
+
+    // ------- FORECASTS (всегда metric=true) --------
+
+    public Response dailyForecast(String locationKey, int days) {
+        return dailyForecast(locationKey, days, null);
+    }
+
+    /** @param language например "ru-ru"; null — язык по умолчанию */
+    public Response dailyForecast(String locationKey, int days, String language) {
+        return send(r -> {
+            r.queryParam("metric", "true");
+            if (language != null) r.queryParam("language", language);
+            return r.get("/forecasts/v1/daily/{days}/{key}", days + "day", locationKey);
+        });
+    }
+
+    public Response hourlyForecast(String locationKey, int hours) {
+        return send(r -> r.queryParam("metric", "true")
+                .get("/forecasts/v1/hourly/{hours}/{key}", hours + "hour", locationKey));
+    }
+
+    public Response quarterDayForecast(String locationKey) {
+        return send(r -> r.queryParam("metric", "true")
+                .get("/forecasts/v1/quarterday/{days}/{key}", "1day", locationKey));
+    }
+
+    // ------- INDICES --------
+
+    public Response indices(String locationKey, int days) {
+        return send(r -> r.get("/indices/v1/daily/{days}/{key}", days + "day", locationKey));
+    }
+
+    // ------- ALERTS --------
+
+    /** 200 — есть предупреждения, 204 — нет */
+    public Response alerts(String locationKey) {
+        return send(r -> r.get("/alerts/v1/{key}", locationKey));
+    }
+}
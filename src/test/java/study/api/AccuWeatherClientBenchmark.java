@@ -0,0 +1,123 @@
+package study.api;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import io.qameta.allure.Allure;
+import io.qameta.allure.AllureLifecycle;
+import io.qameta.allure.model.TestResult;
+import io.qameta.allure.restassured.AllureRestAssured;
+import io.restassured.filter.Filter;
+import io.restassured.filter.log.LogDetail;
+import io.restassured.filter.log.RequestLoggingFilter;
+import io.restassured.filter.log.ResponseLoggingFilter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH-бенчмарк пути запрос/ответ клиента против встроенного WireMock с фикстурами mocks_accuweather.
+ * Throughput и SampleTime (p50/p99 в отчёте JMH) по семействам эндпоинтов,
+ * отдельно без фильтров, с полным логированием Rest Assured, с выборочным {@link ExchangeLog},
+ * с синхронным AllureRestAssured и с фоновым {@link AllureAttachments}.
+ * <p>
+ * Запуск: mvn -Pbench test  (параметры JMH — через -Djmh.args="...")
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccuWeatherClientBenchmark {
+
+    static final String LOCATION_KEY = "294021";
+
+    @Param({"none", "logging", "exchangelog", "allure", "allure-async"})
+    public String filters;
+
+    WireMockServer wm;
+    AccuWeatherClient client;
+    AllureLifecycle lifecycle;
+    String testUuid;
+
+    @Setup(Level.Trial)
+    public void start() {
+        wm = new WireMockServer(MockServers.serverOptions());
+        wm.start();
+        MockServers.registerStubs(wm);
+        client = new AccuWeatherClient("http://localhost:" + wm.port(), "TEST", filters());
+        if (filters.startsWith("allure")) startAllureTest();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        if (testUuid != null) {
+            lifecycle.stopTestCase(testUuid);
+            lifecycle.writeTestCase(testUuid);
+        }
+        wm.stop();
+    }
+
+    private Filter[] filters() {
+        switch (filters) {
+            case "logging":
+                // форматирование лога без консольного I/O, чтобы не мерить терминал
+                PrintStream sink = new PrintStream(OutputStream.nullOutputStream());
+                return new Filter[] {
+                        new RequestLoggingFilter(LogDetail.ALL, sink),
+                        new ResponseLoggingFilter(LogDetail.ALL, sink)
+                };
+            case "exchangelog":
+                // логирует только ошибки и каждый 100-й успешный обмен, запись в фоне
+                return new Filter[] {new ExchangeLog(100, ExchangeLog.DEFAULT_RECENT,
+                        new PrintStream(OutputStream.nullOutputStream()))};
+            case "allure":
+                return new Filter[] {new AllureRestAssured()};
+            case "allure-async":
+                return new Filter[] {new AllureAttachments(Allure.getLifecycle(), AllureAttachments.DEFAULT_SLOW_MILLIS)};
+            default:
+                return new Filter[0];
+        }
+    }
+
+    // AllureRestAssured пишет вложения только внутри запущенного теста
+    private void startAllureTest() {
+        lifecycle = Allure.getLifecycle();
+        testUuid = UUID.randomUUID().toString();
+        lifecycle.scheduleTestCase(new TestResult().setUuid(testUuid).setName("jmh-" + filters));
+        lifecycle.startTestCase(testUuid);
+    }
+
+    @Benchmark
+    public byte[] locations() {
+        return client.citiesSearch("Minsk").asByteArray();
+    }
+
+    @Benchmark
+    public byte[] currentConditions() {
+        return client.currentConditions(LOCATION_KEY).asByteArray();
+    }
+
+    @Benchmark
+    public byte[] forecasts() {
+        return client.dailyForecast(LOCATION_KEY, 5).asByteArray();
+    }
+
+    // тот же ответ плюс потоковый разбор в модель — цена декодирования поверх транспорта
+    @Benchmark
+    public DailyForecast forecastsDecoded() {
+        return WeatherJson.dailyForecast(client.dailyForecast(LOCATION_KEY, 5).asByteArray());
+    }
+
+    @Benchmark
+    public byte[] indices() {
+        return client.indices(LOCATION_KEY, 5).asByteArray();
+    }
+
+    @Benchmark
+    public byte[] alerts() {
+        return client.alerts(LOCATION_KEY).asByteArray();
+    }
+}
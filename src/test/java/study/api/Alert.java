@@ -0,0 +1,5 @@
+package study.api;
+
+/** Предупреждение из /alerts/v1/{key}; alertId — ключ для сравнения снимков. */
+record Alert(String alertId, String description, String severity, String effectiveDate) {
+}
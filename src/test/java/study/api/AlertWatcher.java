@@ -0,0 +1,269 @@
+package study.api;
+
+import io.restassured.response.Response;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32C;
+
+/**
+ * Опрос /alerts/v1/{key} для многих локаций с рассылкой изменений подписчикам.
+ * <p>
+ * Локация с активными предупреждениями опрашивается каждые activeInterval, без них — quietInterval
+ * (оба со случайным разбросом ±{@link #JITTER}). Ответ сравнивается с прошлым по хэшу тела
+ * (CRC32C и длина): неизменившийся ответ не разбирается и не рассылается. Изменившийся
+ * разбирается и сравнивается по AlertID — подписчики получают {@link Delta}.
+ * <p>
+ * У каждого подписчика своя ограниченная очередь и свой поток доставки: медленный подписчик
+ * не тормозит опрос и остальных. Если очередь полна, дельта отбрасывается и считается в
+ * {@link Subscription#dropped}; в каждой дельте есть полный текущий список, так что следующая
+ * доставленная дельта восстанавливает состояние.
+ */
+final class AlertWatcher implements AutoCloseable {
+
+    static final double JITTER = 0.1;
+    static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    static final int DEFAULT_MAX_IN_FLIGHT = 8;
+
+    /** Изменение предупреждений локации; current — полный список после изменения. */
+    record Delta(String locationKey, List<Alert> added, List<Alert> removed, List<Alert> current) {
+    }
+
+    @FunctionalInterface
+    interface Listener {
+        void onChange(Delta delta);
+    }
+
+    private final AccuWeatherClient client;
+    private final long activeNanos;
+    private final long quietNanos;
+    private final ScheduledExecutorService timer;
+    private final ExecutorService workers;
+    private final Map<String, Watched> watched = new ConcurrentHashMap<>();
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    final LongAdder polls = new LongAdder();
+    final LongAdder unchanged = new LongAdder();
+    final LongAdder parsed = new LongAdder();
+    final LongAdder published = new LongAdder();
+    final LongAdder failures = new LongAdder();
+
+    /** Состояние локации; пишется только из одного опроса за раз. */
+    private static final class Watched {
+        final String locationKey;
+        volatile long hash = -1;
+        volatile Map<String, Alert> alerts = Map.of();
+        ScheduledFuture<?> next;
+        volatile boolean cancelled;
+
+        Watched(String locationKey) {
+            this.locationKey = locationKey;
+        }
+    }
+
+    final class Subscription implements AutoCloseable {
+        private final Listener listener;
+        private final BlockingQueue<Delta> queue;
+        private final Thread dispatcher;
+        final LongAdder delivered = new LongAdder();
+        final LongAdder dropped = new LongAdder();
+
+        private Subscription(Listener listener, int capacity, String name) {
+            this.listener = listener;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.dispatcher = new Thread(this::dispatch, name);
+            this.dispatcher.setDaemon(true);
+        }
+
+        private void offer(Delta delta) {
+            if (!queue.offer(delta)) dropped.increment();
+        }
+
+        private void dispatch() {
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    Delta delta = queue.take();
+                    try {
+                        listener.onChange(delta);
+                        delivered.increment();
+                    } catch (RuntimeException e) {
+                        // ошибка подписчика не останавливает доставку следующих дельт
+                        failures.increment();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        int pending() {
+            return queue.size();
+        }
+
+        @Override
+        public void close() {
+            subscriptions.remove(this);
+            dispatcher.interrupt();
+        }
+    }
+
+    AlertWatcher(AccuWeatherClient client, Duration activeInterval, Duration quietInterval) {
+        this(client, activeInterval, quietInterval, DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    AlertWatcher(AccuWeatherClient client, Duration activeInterval, Duration quietInterval, int maxInFlight) {
+        if (activeInterval.compareTo(quietInterval) > 0) {
+            throw new IllegalArgumentException("activeInterval must not exceed quietInterval");
+        }
+        this.client = client;
+        this.activeNanos = activeInterval.toNanos();
+        this.quietNanos = quietInterval.toNanos();
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "alerts-timer"));
+        AtomicInteger n = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(maxInFlight, r -> daemon(r, "alerts-" + n.incrementAndGet()));
+    }
+
+    private static Thread daemon(Runnable r, String name) {
+        Thread t = new Thread(r, name);
+        t.setDaemon(true);
+        return t;
+    }
+
+    Subscription subscribe(Listener listener) {
+        return subscribe(listener, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    Subscription subscribe(Listener listener, int queueCapacity) {
+        Subscription subscription = new Subscription(listener, queueCapacity, "alerts-listener-" + subscriptions.size());
+        subscriptions.add(subscription);
+        subscription.dispatcher.start();
+        return subscription;
+    }
+
+    /** Начинает опрос; первые опросы разбрасываются в пределах activeInterval. */
+    void watch(Collection<String> locationKeys) {
+        for (String key : locationKeys) {
+            watched.computeIfAbsent(key, k -> {
+                Watched w = new Watched(k);
+                schedule(w, ThreadLocalRandom.current().nextLong(activeNanos + 1));
+                return w;
+            });
+        }
+    }
+
+    void unwatch(String locationKey) {
+        Watched w = watched.remove(locationKey);
+        if (w == null) return;
+        synchronized (w) {
+            w.cancelled = true;
+            if (w.next != null) w.next.cancel(false);
+        }
+    }
+
+    /** Текущие предупреждения локации по последнему опросу, без запроса. */
+    List<Alert> alerts(String locationKey) {
+        Watched w = watched.get(locationKey);
+        return w == null ? List.of() : List.copyOf(w.alerts.values());
+    }
+
+    /**
+     * Один опрос локации в текущем потоке (таймер вызывает его же через пул).
+     *
+     * @return разосланная дельта или null — ответ не изменился или ошибка
+     */
+    Delta poll(String locationKey) {
+        return poll(watched.computeIfAbsent(locationKey, Watched::new));
+    }
+
+    private Delta poll(Watched w) {
+        synchronized (w) {
+            try {
+                return pollLocked(w);
+            } catch (Exception e) {   // Rest Assured пробрасывает и проверяемые IOException (отказ соединения)
+                failures.increment();
+                return null;
+            }
+        }
+    }
+
+    private Delta pollLocked(Watched w) {
+        polls.increment();
+        Response response = client.alerts(w.locationKey);
+        int status = response.statusCode();
+        if (status != 200 && status != 204) {
+            throw new IllegalStateException("HTTP " + status + " for alerts " + w.locationKey);
+        }
+        byte[] body = status == 204 ? new byte[0] : response.asByteArray();
+        long hash = hash(body);
+        if (hash == w.hash) {
+            unchanged.increment();
+            return null;
+        }
+        parsed.increment();
+
+        Map<String, Alert> current = new LinkedHashMap<>();
+        for (Alert alert : WeatherJson.alerts(body)) current.put(alert.alertId(), alert);
+        Map<String, Alert> previous = w.alerts;
+        // хэш — только после успешного разбора: иначе сломанное тело навсегда сочтётся «неизменным»
+        w.alerts = current;
+        w.hash = hash;
+
+        List<Alert> added = new ArrayList<>();
+        current.forEach((id, alert) -> {
+            if (!alert.equals(previous.get(id))) added.add(alert);
+        });
+        List<Alert> removed = new ArrayList<>();
+        previous.forEach((id, alert) -> {
+            if (!current.containsKey(id)) removed.add(alert);
+        });
+        // тело изменилось, а предупреждения нет (порядок полей, служебные поля) — рассылать нечего
+        if (added.isEmpty() && removed.isEmpty()) return null;
+
+        Delta delta = new Delta(w.locationKey, List.copyOf(added), List.copyOf(removed), List.copyOf(current.values()));
+        published.increment();
+        for (Subscription subscription : subscriptions) subscription.offer(delta);
+        return delta;
+    }
+
+    /** CRC32C (аппаратный на x86/ARM) в младших 32 битах, длина — в старших. */
+    static long hash(byte[] body) {
+        CRC32C crc = new CRC32C();
+        crc.update(body, 0, body.length);
+        return ((long) body.length << 32) | crc.getValue();
+    }
+
+    private void schedule(Watched w, long delayNanos) {
+        synchronized (w) {
+            if (w.cancelled || timer.isShutdown()) return;
+            w.next = timer.schedule(() -> workers.execute(() -> {
+                if (w.cancelled) return;
+                poll(w);
+                long interval = w.alerts.isEmpty() ? quietNanos : activeNanos;
+                schedule(w, (long) (interval * (1 + JITTER * (2 * ThreadLocalRandom.current().nextDouble() - 1))));
+            }), delayNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+        workers.shutdownNow();
+        for (Subscription subscription : subscriptions) subscription.close();
+    }
+}
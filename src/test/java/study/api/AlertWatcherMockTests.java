@@ -0,0 +1,125 @@
+package study.api;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.stubbing.StubMapping;
+import org.junit.jupiter.api.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Опрос предупреждений против WireMock: сравнение по хэшу, дельты подписчикам, частота опроса.
+ */
+public class AlertWatcherMockTests {
+
+    WireMockServer wm;
+    AlertWatcher watcher;
+
+    @BeforeEach
+    void start() {
+        wm = new WireMockServer(options().dynamicPort());
+        wm.start();
+        MockStub.registerAll(wm);
+        AccuWeatherClient client = new AccuWeatherClient("http://localhost:" + wm.port(), "TEST");
+        watcher = new AlertWatcher(client, Duration.ofMillis(50), Duration.ofMinutes(10));
+    }
+
+    @AfterEach
+    void stop() {
+        watcher.close();
+        wm.stop();
+    }
+
+    StubMapping noAlerts(String locationKey) {
+        return wm.stubFor(get(urlPathEqualTo("/alerts/v1/" + locationKey)).atPriority(1)
+                .willReturn(aResponse().withStatus(204)));
+    }
+
+    @Test @DisplayName("Unchanged payload is neither parsed nor published")
+    void unchangedPayloadIsSkipped() {
+        AlertWatcher.Delta first = watcher.poll("294021");
+        AlertWatcher.Delta second = watcher.poll("294021");
+
+        assertThat(first.added(), hasSize(1));
+        assertThat(first.added().get(0).alertId(), is("AL-100500"));
+        assertThat(second, nullValue());
+        assertThat(watcher.parsed.sum(), is(1L));
+        assertThat(watcher.unchanged.sum(), is(1L));
+        assertThat(watcher.published.sum(), is(1L));
+    }
+
+    @Test @DisplayName("Added and cleared alerts fan out to every listener")
+    void deltasFanOut() {
+        List<AlertWatcher.Delta> a = new CopyOnWriteArrayList<>();
+        List<AlertWatcher.Delta> b = new CopyOnWriteArrayList<>();
+        watcher.subscribe(a::add);
+        watcher.subscribe(b::add);
+
+        watcher.poll("294021");
+        noAlerts("294021");
+        watcher.poll("294021");
+
+        Await.until(() -> a.size() == 2 && b.size() == 2);
+        assertThat(a.get(1).removed().get(0).alertId(), is("AL-100500"));
+        assertThat(a.get(1).current(), empty());
+        assertThat(b, is(a));
+        assertThat(watcher.alerts("294021"), empty());
+    }
+
+    @Test @DisplayName("Slow listener never blocks polling; overflow is dropped and counted")
+    void slowListenerDropsOverflow() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        AlertWatcher.Subscription slow = watcher.subscribe(delta -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, 1);
+
+        for (int i = 0; i < 4; i++) {
+            StubMapping empty = i % 2 == 1 ? noAlerts("294021") : null;
+            assertThat(watcher.poll("294021"), notNullValue());
+            if (empty != null) wm.removeStub(empty);
+        }
+
+        assertThat(slow.dropped.sum(), greaterThanOrEqualTo(2L));
+        release.countDown();
+        Await.until(() -> slow.pending() == 0);
+    }
+
+    int requests(String locationKey) {
+        return wm.findAll(getRequestedFor(urlPathEqualTo("/alerts/v1/" + locationKey))).size();
+    }
+
+    @Test @DisplayName("Locations with active alerts are polled more often")
+    void adaptiveSchedule() {
+        noAlerts("111");
+        watcher.watch(List.of("294021", "111"));
+
+        // активную локацию опрашивают каждые 50 мс, тихую — раз в 10 минут: второго опроса не будет
+        Await.until(() -> requests("294021") >= 5 && requests("111") >= 1);
+        assertThat(requests("111"), is(1));
+    }
+
+    @Test @DisplayName("Unparseable payload is not remembered as seen")
+    void unparseablePayloadIsRetried() {
+        StubMapping broken = wm.stubFor(get(urlPathEqualTo("/alerts/v1/294021")).atPriority(1)
+                .willReturn(aResponse().withStatus(200).withBody("[{\"AlertID\": ")));
+
+        assertThat(watcher.poll("294021"), nullValue());
+        assertThat(watcher.poll("294021"), nullValue());
+        assertThat(watcher.failures.sum(), is(2L));
+        assertThat(watcher.unchanged.sum(), is(0L));
+
+        wm.removeStub(broken);
+        assertThat(watcher.poll("294021").added(), hasSize(1));
+    }
+}
@@ -0,0 +1,161 @@
+package study.api;
+
+import io.qameta.allure.Allure;
+import io.qameta.allure.AllureLifecycle;
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.http.Header;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Вложения Allure для запросов клиента вместо AllureRestAssured.
+ * На потоке теста вложение только регистрируется в текущем тесте/шаге (prepareAttachment, без I/O),
+ * а файл пишет фоновый поток пачками из ограниченной очереди. Если очередь полна,
+ * вложение пишется на месте — память ограничена, вложения не теряются.
+ * <p>
+ * Полный запрос и ответ прикладываются только для ошибок (статус >= 400) и медленных вызовов;
+ * остальные — одной строкой. Тело больше {@link #MAX_INLINE_BODY} сжимается в .gz.
+ * apikey маскируется и в запросе, и в теле ответа, как в {@link ExchangeLog}.
+ */
+final class AllureAttachments implements Filter {
+
+    static final long DEFAULT_SLOW_MILLIS = Long.getLong("allure.slowMillis", 1000);
+    static final int MAX_INLINE_BODY = 256 * 1024;
+    static final int QUEUE_CAPACITY = 1024;
+    static final int BATCH = 64;
+
+    private static final AllureAttachments SHARED = new AllureAttachments(Allure.getLifecycle(), DEFAULT_SLOW_MILLIS);
+
+    static {
+        // отчёт собирается после завершения JVM — всё из очереди общего экземпляра должно успеть лечь на диск;
+        // остальные экземпляры (тесты) вызывают flush() сами
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                SHARED.flush();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "allure-attachments-flush"));
+    }
+
+    private record Pending(String source, byte[] content) {
+    }
+
+    private final AllureLifecycle lifecycle;
+    private final long slowNanos;
+    private final BlockingQueue<Object> queue;
+    final LongAdder writtenInline = new LongAdder();
+
+    AllureAttachments(AllureLifecycle lifecycle, long slowMillis) {
+        this(lifecycle, slowMillis, QUEUE_CAPACITY);
+    }
+
+    AllureAttachments(AllureLifecycle lifecycle, long slowMillis, int queueCapacity) {
+        this.lifecycle = lifecycle;
+        this.slowNanos = TimeUnit.MILLISECONDS.toNanos(slowMillis);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        Thread writer = new Thread(this::write, "allure-attachments");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    static AllureAttachments shared() {
+        return SHARED;
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification req, FilterableResponseSpecification res, FilterContext ctx) {
+        long start = System.nanoTime();
+        Response response = ctx.next(req, res);
+        long elapsed = System.nanoTime() - start;
+        if (lifecycle.getCurrentTestCaseOrStep().isEmpty()) return response;
+
+        String summary = req.getMethod() + " " + ExchangeLog.maskKey(req.getURI())
+                + " -> " + response.statusCode() + " (" + TimeUnit.NANOSECONDS.toMillis(elapsed) + " ms)";
+        if (response.statusCode() < 400 && elapsed < slowNanos) {
+            attach(summary, "text/plain", "txt", summary.getBytes(StandardCharsets.UTF_8));
+            return response;
+        }
+
+        attach("Request " + summary, "text/plain", "txt", requestText(req).getBytes(StandardCharsets.UTF_8));
+        byte[] body = ExchangeLog.maskKey(req, response.asString()).getBytes(StandardCharsets.UTF_8);
+        if (body.length > MAX_INLINE_BODY) {
+            attach("Response body (gzip, " + body.length + " bytes)", "application/gzip", "json.gz", gzip(body));
+        } else {
+            attach("Response " + response.getStatusLine(), response.getContentType(), "json", body);
+        }
+        return response;
+    }
+
+    /** Ждёт, пока фоновый поток запишет всё, что уже в очереди. */
+    void flush() throws InterruptedException {
+        CountDownLatch written = new CountDownLatch(1);
+        queue.put(written);
+        written.await(30, TimeUnit.SECONDS);
+    }
+
+    private void attach(String name, String type, String extension, byte[] content) {
+        String source = lifecycle.prepareAttachment(name, type, extension);
+        Pending pending = new Pending(source, content);
+        if (!queue.offer(pending)) {
+            writtenInline.increment();
+            write(pending);
+        }
+    }
+
+    private void write() {
+        List<Object> batch = new ArrayList<>(BATCH);
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch, BATCH - 1);
+                for (Object item : batch) {
+                    if (item instanceof Pending pending) write(pending);
+                    else ((CountDownLatch) item).countDown();
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void write(Pending pending) {
+        lifecycle.writeAttachment(pending.source(), new ByteArrayInputStream(pending.content()));
+    }
+
+    private static String requestText(FilterableRequestSpecification req) {
+        StringBuilder sb = new StringBuilder(req.getMethod()).append(' ')
+                .append(ExchangeLog.maskKey(req.getURI())).append('\n');
+        for (Header header : req.getHeaders()) {
+            sb.append(header.getName()).append(": ").append(header.getValue()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,176 @@
+package study.api;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import io.qameta.allure.AllureLifecycle;
+import io.qameta.allure.AllureResultsWriter;
+import io.qameta.allure.model.Attachment;
+import io.qameta.allure.model.TestResult;
+import io.qameta.allure.model.TestResultContainer;
+import org.junit.jupiter.api.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.zip.GZIPInputStream;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Вложения Allure против WireMock: сводка для быстрых успехов, полный обмен для ошибок и медленных вызовов,
+ * сжатие больших тел, маскирование apikey и запись на месте при полной очереди.
+ */
+public class AllureAttachmentsMockTests {
+
+    /** Пишет вложения в память; фоновый поток можно придержать, чтобы заполнить очередь. */
+    static final class MemoryWriter implements AllureResultsWriter {
+        final Map<String, byte[]> attachments = new ConcurrentHashMap<>();
+        volatile CountDownLatch writerGate = new CountDownLatch(0);
+
+        @Override
+        public void write(TestResult testResult) {
+        }
+
+        @Override
+        public void write(TestResultContainer testResultContainer) {
+        }
+
+        @Override
+        public void write(String source, InputStream attachment) {
+            if (Thread.currentThread().getName().equals("allure-attachments")) {
+                try {
+                    writerGate.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            try {
+                attachments.put(source, attachment.readAllBytes());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    WireMockServer wm;
+    MemoryWriter writer = new MemoryWriter();
+    AllureLifecycle lifecycle = new AllureLifecycle(writer);
+    String testCase = UUID.randomUUID().toString();
+
+    @BeforeEach
+    void start() {
+        wm = new WireMockServer(options().dynamicPort());
+        wm.start();
+        MockStub.registerAll(wm);
+        lifecycle.scheduleTestCase(new TestResult().setUuid(testCase).setName("attachments"));
+        lifecycle.startTestCase(testCase);
+    }
+
+    @AfterEach
+    void stop() {
+        lifecycle.stopTestCase(testCase);
+        lifecycle.writeTestCase(testCase);
+        wm.stop();
+    }
+
+    AccuWeatherClient client(AllureAttachments attachments) {
+        return new AccuWeatherClient("http://localhost:" + wm.port(), "SECRET", attachments);
+    }
+
+    /** Вложения текущего теста в порядке регистрации. */
+    List<Attachment> attached() {
+        List<Attachment> result = new ArrayList<>();
+        lifecycle.updateTestCase(testCase, test -> result.addAll(test.getAttachments()));
+        return result;
+    }
+
+    String content(Attachment attachment) {
+        return new String(writer.attachments.get(attachment.getSource()), StandardCharsets.UTF_8);
+    }
+
+    @Test @DisplayName("Fast success is a one-line summary")
+    void successIsSummary() throws InterruptedException {
+        AllureAttachments attachments = new AllureAttachments(lifecycle, 10_000);
+
+        client(attachments).currentConditions("294021");
+        attachments.flush();
+
+        assertThat(attached(), hasSize(1));
+        assertThat(content(attached().get(0)), allOf(
+                containsString("GET "), containsString("-> 200"), not(containsString("SECRET"))));
+    }
+
+    @Test @DisplayName("Error is attached in full with the api key masked in the body")
+    void errorBodyIsMasked() throws InterruptedException {
+        wm.stubFor(get(urlPathEqualTo("/currentconditions/v1/294021")).atPriority(1)
+                .willReturn(aResponse().withStatus(401).withHeader("Content-Type", "application/json")
+                        .withBody("{\"Message\":\"Api key SECRET is invalid\"}")));
+        AllureAttachments attachments = new AllureAttachments(lifecycle, 10_000);
+
+        client(attachments).currentConditions("294021");
+        attachments.flush();
+
+        List<Attachment> attached = attached();
+        assertThat(attached, hasSize(2));
+        assertThat(attached.get(0).getName(), startsWith("Request "));
+        assertThat(content(attached.get(0)), not(containsString("SECRET")));
+        assertThat(content(attached.get(1)), allOf(containsString("Api key *** is invalid"), not(containsString("SECRET"))));
+    }
+
+    @Test @DisplayName("Slow success is attached in full")
+    void slowCallInFull() throws InterruptedException {
+        wm.stubFor(get(urlPathEqualTo("/currentconditions/v1/294021")).atPriority(1)
+                .willReturn(aResponse().withStatus(200).withFixedDelay(200)
+                        .withBody(MockFixtures.bytes(MockStub.CURRENT_CONDITIONS.fixture))));
+        AllureAttachments attachments = new AllureAttachments(lifecycle, 100);
+
+        client(attachments).currentConditions("294021");
+        attachments.flush();
+
+        assertThat(attached(), hasSize(2));
+        assertThat(attached().get(1).getName(), startsWith("Response "));
+    }
+
+    @Test @DisplayName("Large body is gzipped")
+    void largeBodyIsGzipped() throws IOException, InterruptedException {
+        String body = "[" + "\"x\",".repeat(AllureAttachments.MAX_INLINE_BODY / 4) + "\"x\"]";
+        wm.stubFor(get(urlPathEqualTo("/alerts/v1/294021")).atPriority(1)
+                .willReturn(aResponse().withStatus(500).withBody(body)));
+        AllureAttachments attachments = new AllureAttachments(lifecycle, 10_000);
+
+        client(attachments).alerts("294021");
+        attachments.flush();
+
+        Attachment response = attached().get(1);
+        assertThat(response.getType(), is("application/gzip"));
+        assertThat(response.getSource(), endsWith(".json.gz"));
+        try (InputStream gz = new GZIPInputStream(new ByteArrayInputStream(writer.attachments.get(response.getSource())))) {
+            assertThat(new String(gz.readAllBytes(), StandardCharsets.UTF_8), is(body));
+        }
+    }
+
+    @Test @DisplayName("Full queue is written inline and nothing is lost")
+    void fullQueueWritesInline() throws InterruptedException {
+        writer.writerGate = new CountDownLatch(1);
+        AllureAttachments attachments = new AllureAttachments(lifecycle, 10_000, 2);
+        AccuWeatherClient client = client(attachments);
+
+        for (int i = 0; i < 6; i++) client.currentConditions("294021");
+        // фоновый поток держит одно вложение, два ждут в очереди — остальные записаны на месте
+        assertThat(attachments.writtenInline.sum(), greaterThanOrEqualTo(3L));
+
+        writer.writerGate.countDown();
+        attachments.flush();
+        assertThat(writer.attachments.size(), is(6));
+    }
+}
@@ -0,0 +1,53 @@
+package study.api;
+
+import io.restassured.response.Response;
+
+/**
+ * 20 вызовов из {@link AccuWeatherApiTests} в виде данных — для нагрузки и замеров,
+ * где нужно прогонять те же запросы без JUnit.
+ */
+enum ApiCall {
+
+    CITIES_SEARCH(EndpointFamily.LOCATIONS, (c, key, lang) -> c.citiesSearch("Minsk")),
+    CITIES_AUTOCOMPLETE(EndpointFamily.LOCATIONS, (c, key, lang) -> c.citiesAutocomplete("Lon")),
+    GEOPOSITION_SEARCH(EndpointFamily.LOCATIONS, (c, key, lang) -> c.geopositionSearch("53.9,27.5667")),
+    POSTAL_SEARCH(EndpointFamily.LOCATIONS, (c, key, lang) -> c.postalCodesSearch("10001")),
+    TOP_CITIES(EndpointFamily.LOCATIONS, (c, key, lang) -> c.topCities(50)),
+
+    CURRENT_CONDITIONS(EndpointFamily.CURRENT_CONDITIONS, (c, key, lang) -> c.currentConditions(key)),
+    CURRENT_CONDITIONS_DETAILS(EndpointFamily.CURRENT_CONDITIONS, (c, key, lang) -> c.currentConditions(key, true)),
+    HISTORICAL_6H(EndpointFamily.CURRENT_CONDITIONS, (c, key, lang) -> c.historicalConditions(key, 6)),
+    HISTORICAL_24H(EndpointFamily.CURRENT_CONDITIONS, (c, key, lang) -> c.historicalConditions(key, 24)),
+    CONDITIONS_TOP_CITIES(EndpointFamily.CURRENT_CONDITIONS, (c, key, lang) -> c.topCitiesConditions(50)),
+
+    FORECAST_1DAY(EndpointFamily.FORECASTS, (c, key, lang) -> c.dailyForecast(key, 1, lang)),
+    FORECAST_5DAY(EndpointFamily.FORECASTS, (c, key, lang) -> c.dailyForecast(key, 5)),
+    FORECAST_12HOUR(EndpointFamily.FORECASTS, (c, key, lang) -> c.hourlyForecast(key, 12)),
+    FORECAST_24HOUR(EndpointFamily.FORECASTS, (c, key, lang) -> c.hourlyForecast(key, 24)),
+    FORECAST_QUARTERDAY(EndpointFamily.FORECASTS, (c, key, lang) -> c.quarterDayForecast(key)),
+
+    INDICES_1DAY(EndpointFamily.INDICES, (c, key, lang) -> c.indices(key, 1)),
+    INDICES_5DAY(EndpointFamily.INDICES, (c, key, lang) -> c.indices(key, 5)),
+
+    ALERTS(EndpointFamily.ALERTS, (c, key, lang) -> c.alerts(key)),
+
+    FORECAST_LOCALIZED(EndpointFamily.FORECASTS, (c, key, lang) -> c.dailyForecast(key, 1, "ru-ru")),
+    PERF_AND_HEADERS(EndpointFamily.CURRENT_CONDITIONS, (c, key, lang) -> c.currentConditions(key));
+
+    @FunctionalInterface
+    interface Invoker {
+        Response call(AccuWeatherClient client, String locationKey, String language);
+    }
+
+    final EndpointFamily family;
+    private final Invoker invoker;
+
+    ApiCall(EndpointFamily family, Invoker invoker) {
+        this.family = family;
+        this.invoker = invoker;
+    }
+
+    Response call(AccuWeatherClient client, String locationKey, String language) {
+        return invoker.call(client, locationKey, language);
+    }
+}
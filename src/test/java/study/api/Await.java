@@ -0,0 +1,28 @@
+package study.api;
+
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Ожидание условия в тестах фоновых потоков: опрос каждые 10 мс вместо фиксированного sleep.
+ */
+final class Await {
+
+    static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private Await() {
+    }
+
+    static void until(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() - deadline > 0) throw new AssertionError("Condition not met in " + TIMEOUT);
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+}
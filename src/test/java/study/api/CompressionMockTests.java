@@ -0,0 +1,81 @@
+package study.api;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import org.junit.jupiter.api.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Сжатые ответы: WireMock отдаёт gzip только на Accept-Encoding: gzip, клиенты распаковывают
+ * и считают байты по сети меньше распакованных.
+ */
+public class CompressionMockTests {
+
+    static final String DAILY = "/forecasts/v1/daily/{days}/{key}";
+
+    WireMockServer wm;
+    byte[] fixture;
+
+    @BeforeEach
+    void start() {
+        wm = new WireMockServer(options().dynamicPort());
+        wm.start();
+        fixture = MockFixtures.bytes(MockStub.DAILY_5DAY.fixture);
+        wm.stubFor(get(urlPathEqualTo("/forecasts/v1/daily/5day/294021"))
+                .withHeader("Accept-Encoding", containing("gzip"))
+                .willReturn(aResponse().withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withHeader("Content-Encoding", "gzip")
+                        .withBody(gzip(fixture))));
+    }
+
+    @AfterEach
+    void stop() {
+        wm.stop();
+    }
+
+    @Test @DisplayName("Rest Assured client negotiates gzip and counts compressed bytes")
+    void restAssuredClientIsCompressed() {
+        AccuWeatherClient client = new AccuWeatherClient("http://localhost:" + wm.port(), "TEST");
+
+        client.dailyForecast("294021", 5).then().statusCode(200)
+                .body("Headline.Text", is("Cold spell"));
+
+        WireStats stats = client.wireStats();
+        assertThat(stats.decodedBytes(DAILY), is((long) fixture.length));
+        assertThat(stats.wireBytes(DAILY), allOf(greaterThan(0L), lessThan((long) fixture.length)));
+    }
+
+    @Test @DisplayName("Streaming client decodes gzip straight into the columnar model")
+    void streamingClientIsCompressed() {
+        WireStats stats = new WireStats();
+        StreamingClient client = new StreamingClient("http://localhost:" + wm.port(), "TEST", false, stats);
+
+        ForecastColumns first = client.dailyForecast("294021", 5);
+        ForecastColumns second = client.dailyForecast("294021", 5);
+
+        assertThat(first.size(), is(5));
+        assertThat(second.headline, is("Cold spell"));
+        assertThat(stats.decodedBytes(DAILY), is(2L * fixture.length));
+        assertThat(stats.wireBytes(DAILY), lessThan((long) fixture.length));
+        assertThat(stats.report(), containsString(DAILY));
+    }
+
+    static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,116 @@
+package study.api;
+
+import io.restassured.response.Response;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Текущая погода сразу для многих location key: запросы идут параллельно,
+ * не больше maxInFlight одновременно, а одновременные запросы одного ключа
+ * (в том числе из разных вызовов {@link #fetch}) склеиваются в один вызов API.
+ */
+final class ConditionsBatch implements AutoCloseable {
+
+    static final int DEFAULT_MAX_IN_FLIGHT = 16;
+
+    /** Результат пачки: погода по успешным ключам и ошибка по каждому неуспешному. */
+    record Result(Map<String, CurrentCondition> conditions, Map<String, RuntimeException> errors) {
+    }
+
+    private final AccuWeatherClient client;
+    private final ExecutorService workers;
+    private final Map<String, CompletableFuture<CurrentCondition>> inFlight = new ConcurrentHashMap<>();
+
+    /** Сколько запросов действительно ушло в API (после склейки дублей). */
+    final LongAdder upstreamCalls = new LongAdder();
+
+    ConditionsBatch(AccuWeatherClient client) {
+        this(client, DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    /** @param maxInFlight не больше размера пула соединений на хост, см. AccuWeatherClient */
+    ConditionsBatch(AccuWeatherClient client, int maxInFlight) {
+        if (maxInFlight <= 0) throw new IllegalArgumentException("maxInFlight must be positive: " + maxInFlight);
+        this.client = client;
+        AtomicInteger n = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(maxInFlight, r -> {
+            Thread t = new Thread(r, "conditions-batch-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** Блокирует до завершения всех ключей; порядок в результате — порядок ключей на входе. */
+    Result fetch(Collection<String> locationKeys) {
+        Map<String, CompletableFuture<CurrentCondition>> futures = new LinkedHashMap<>();
+        for (String key : new LinkedHashSet<>(locationKeys)) {
+            futures.put(key, submit(key));
+        }
+        Map<String, CurrentCondition> conditions = new LinkedHashMap<>();
+        Map<String, RuntimeException> errors = new LinkedHashMap<>();
+        futures.forEach((key, future) -> {
+            try {
+                conditions.put(key, future.join());
+            } catch (CompletionException e) {
+                errors.put(key, e.getCause() instanceof RuntimeException re
+                        ? re : new IllegalStateException(e.getCause()));
+            }
+        });
+        return new Result(conditions, errors);
+    }
+
+    private CompletableFuture<CurrentCondition> submit(String key) {
+        CompletableFuture<CurrentCondition> created = new CompletableFuture<>();
+        CompletableFuture<CurrentCondition> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) return existing;
+
+        try {
+            workers.execute(() -> {
+                try {
+                    created.complete(load(key));
+                } catch (Exception e) {
+                    // в том числе необъявленные IOException из Rest Assured: отказ в соединении, обрыв
+                    created.completeExceptionally(e);
+                } finally {
+                    // следующий запрос этого ключа уже пойдёт в API, а не получит старый результат
+                    inFlight.remove(key, created);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // после close() задача не запустится: ключ не должен остаться «в полёте»
+            inFlight.remove(key, created);
+            created.completeExceptionally(e);
+        }
+        return created;
+    }
+
+    private CurrentCondition load(String key) {
+        upstreamCalls.increment();
+        Response response = client.currentConditions(key);
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("HTTP " + response.statusCode() + " for location " + key);
+        }
+        List<CurrentCondition> conditions = WeatherJson.currentConditions(response.asByteArray());
+        if (conditions.isEmpty()) {
+            throw new IllegalStateException("Empty current conditions for location " + key);
+        }
+        return conditions.get(0);
+    }
+
+    @Override
+    public void close() {
+        workers.shutdownNow();
+    }
+}
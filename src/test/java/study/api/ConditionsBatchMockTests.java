@@ -0,0 +1,89 @@
+package study.api;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import org.junit.jupiter.api.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Пакетная загрузка текущей погоды против WireMock: результат и ошибки по ключам, склейка дублей.
+ */
+public class ConditionsBatchMockTests {
+
+    WireMockServer wm;
+    ConditionsBatch batch;
+
+    @BeforeEach
+    void start() {
+        wm = new WireMockServer(options().dynamicPort());
+        wm.start();
+        MockStub.registerAll(wm);
+        batch = new ConditionsBatch(new AccuWeatherClient("http://localhost:" + wm.port(), "TEST"), 4);
+    }
+
+    @AfterEach
+    void stop() {
+        batch.close();
+        wm.stop();
+    }
+
+    @Test @DisplayName("Each key gets either a result or an error")
+    void resultsAndErrorsPerKey() {
+        ConditionsBatch.Result result = batch.fetch(List.of("294021", "349727", "328328", "no-such-key"));
+
+        assertThat(result.conditions().keySet(), contains("294021", "349727", "328328"));
+        assertThat(result.conditions().get("294021").weatherText(), notNullValue());
+        assertThat(result.errors().keySet(), contains("no-such-key"));
+        assertThat(result.errors().get("no-such-key").getMessage(), containsString("404"));
+    }
+
+    @Test @DisplayName("Duplicate keys in flight make one upstream call")
+    void duplicatesAreCoalesced() {
+        wm.stubFor(get(urlPathEqualTo("/currentconditions/v1/111")).atPriority(1)
+                .willReturn(aResponse().withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withFixedDelay(300)
+                        .withBody(MockFixtures.bytes(MockStub.CURRENT_CONDITIONS.fixture))));
+
+        CompletableFuture<ConditionsBatch.Result> first =
+                CompletableFuture.supplyAsync(() -> batch.fetch(List.of("111", "111")));
+        CompletableFuture<ConditionsBatch.Result> second =
+                CompletableFuture.supplyAsync(() -> batch.fetch(List.of("111")));
+
+        assertThat(first.join().conditions(), hasKey("111"));
+        assertThat(second.join().conditions(), hasKey("111"));
+        wm.verify(1, getRequestedFor(urlPathEqualTo("/currentconditions/v1/111")));
+        Assertions.assertEquals(1, batch.upstreamCalls.sum());
+    }
+
+    @Test @DisplayName("Refused connection becomes an error for the key")
+    void unreachableApiIsAnError() {
+        try (ConditionsBatch unreachable = new ConditionsBatch(
+                new AccuWeatherClient(MockServers.unreachableUrl(), "TEST"), 2)) {
+            ConditionsBatch.Result result = Assertions.assertTimeoutPreemptively(Duration.ofSeconds(10),
+                    () -> unreachable.fetch(List.of("294021", "349727")));
+
+            assertThat(result.conditions().keySet(), empty());
+            assertThat(result.errors().keySet(), contains("294021", "349727"));
+        }
+    }
+
+    @Test @DisplayName("Fetch after close fails every key instead of hanging")
+    void fetchAfterClose() {
+        batch.close();
+
+        for (int i = 0; i < 2; i++) {
+            ConditionsBatch.Result result = Assertions.assertTimeoutPreemptively(Duration.ofSeconds(5),
+                    () -> batch.fetch(List.of("294021")));
+            assertThat(result.errors().get("294021"), instanceOf(RejectedExecutionException.class));
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package study.api;
+
+/**
+ * Ряд наблюдений одной локации в кольцевом буфере примитивных массивов:
+ * EpochTime, температура (°C) и код погоды. Упорядочен по времени, хранит не больше capacity
+ * последних наблюдений; новые ответы /historical и /currentconditions вливаются через {@link #merge},
+ * уже известные наблюдения повторно не добавляются.
+ */
+final class ConditionsHistory {
+
+    /** Сводка по окну; для пустого окна count = 0 и NaN в остальных полях. */
+    record Window(int count, float min, float max, double mean) {
+    }
+
+    private final long[] epochs;
+    private final float[] temperatures;
+    private final int[] icons;
+    private int head;   // индекс самого старого наблюдения
+    private int size;
+
+    // Буфер разбора одного ответа (ответы идут от новых к старым), переиспользуется
+    private final long[] batchEpochs;
+    private final float[] batchTemperatures;
+    private final int[] batchIcons;
+    private int batchSize;
+
+    ConditionsHistory(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        epochs = new long[capacity];
+        temperatures = new float[capacity];
+        icons = new int[capacity];
+        batchEpochs = new long[capacity];
+        batchTemperatures = new float[capacity];
+        batchIcons = new int[capacity];
+    }
+
+    /**
+     * Вливает наблюдения из ответа AccuWeather, новее самого свежего из уже известных.
+     *
+     * @return сколько наблюдений добавлено
+     */
+    synchronized int merge(byte[] json) {
+        batchSize = 0;
+        WeatherJson.observations(json, this::stage);
+        sortBatch();
+        int added = 0;
+        for (int i = 0; i < batchSize; i++) {
+            if (size == 0 || batchEpochs[i] > newestEpoch()) {
+                append(batchEpochs[i], batchTemperatures[i], batchIcons[i]);
+                added++;
+            }
+        }
+        return added;
+    }
+
+    // В буфер разбора помещается не больше capacity наблюдений — более старые всё равно вытеснились бы
+    private void stage(long epoch, float temperature, int icon) {
+        int slot = batchSize;
+        if (slot == batchEpochs.length) {
+            slot = oldestInBatch();
+            if (batchEpochs[slot] >= epoch) return;
+        } else {
+            batchSize++;
+        }
+        batchEpochs[slot] = epoch;
+        batchTemperatures[slot] = temperature;
+        batchIcons[slot] = icon;
+    }
+
+    private int oldestInBatch() {
+        int oldest = 0;
+        for (int i = 1; i < batchSize; i++) {
+            if (batchEpochs[i] < batchEpochs[oldest]) oldest = i;
+        }
+        return oldest;
+    }
+
+    // Вставками: в ответе десятки наблюдений, и они почти отсортированы (в обратном порядке)
+    private void sortBatch() {
+        for (int i = 1; i < batchSize; i++) {
+            long epoch = batchEpochs[i];
+            float temperature = batchTemperatures[i];
+            int icon = batchIcons[i];
+            int j = i - 1;
+            while (j >= 0 && batchEpochs[j] > epoch) {
+                batchEpochs[j + 1] = batchEpochs[j];
+                batchTemperatures[j + 1] = batchTemperatures[j];
+                batchIcons[j + 1] = batchIcons[j];
+                j--;
+            }
+            batchEpochs[j + 1] = epoch;
+            batchTemperatures[j + 1] = temperature;
+            batchIcons[j + 1] = icon;
+        }
+    }
+
+    private void append(long epoch, float temperature, int icon) {
+        int capacity = epochs.length;
+        int slot = (head + size) % capacity;
+        if (size == capacity) {
+            head = (head + 1) % capacity;
+        } else {
+            size++;
+        }
+        epochs[slot] = epoch;
+        temperatures[slot] = temperature;
+        icons[slot] = icon;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    /** @return EpochTime самого свежего наблюдения или 0, если ряд пуст */
+    synchronized long newestEpoch() {
+        return size == 0 ? 0 : epochs[(head + size - 1) % epochs.length];
+    }
+
+    /** @return код погоды самого свежего наблюдения или 0, если ряд пуст */
+    synchronized int latestIcon() {
+        return size == 0 ? 0 : icons[(head + size - 1) % epochs.length];
+    }
+
+    /** Min/max/mean температуры по наблюдениям с EpochTime >= fromEpoch. */
+    synchronized Window window(long fromEpoch) {
+        int count = 0;
+        float min = Float.NaN, max = Float.NaN;
+        double sum = 0;
+        for (int i = size - 1; i >= 0; i--) {
+            int slot = (head + i) % epochs.length;
+            if (epochs[slot] < fromEpoch) break;
+            float t = temperatures[slot];
+            min = count == 0 ? t : Math.min(min, t);
+            max = count == 0 ? t : Math.max(max, t);
+            sum += t;
+            count++;
+        }
+        return new Window(count, min, max, count == 0 ? Double.NaN : sum / count);
+    }
+}
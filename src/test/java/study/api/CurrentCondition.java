@@ -0,0 +1,14 @@
+package study.api;
+
+/**
+ * Текущая погода из /currentconditions/v1/... — только поля, которые проверяются и используются.
+ *
+ * @param key         location key; есть только в ответе topcities, иначе null
+ * @param realFeel    null, если запрос был без details=true
+ */
+record CurrentCondition(String key,
+                        String observedAt,
+                        String weatherText,
+                        Measure temperature,
+                        Measure realFeel) {
+}
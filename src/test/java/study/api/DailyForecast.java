@@ -0,0 +1,14 @@
+package study.api;
+
+import java.util.List;
+
+/** Дневной прогноз из /forecasts/v1/daily/... (metric=true). */
+record DailyForecast(String headline, List<Day> days) {
+
+    /**
+     * @param dayPhrase   null, если в ответе нет блока Day
+     * @param nightPhrase null, если в ответе нет блока Night
+     */
+    record Day(String date, Measure minimum, Measure maximum, String dayPhrase, String nightPhrase) {
+    }
+}
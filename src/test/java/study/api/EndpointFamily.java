@@ -0,0 +1,28 @@
+package study.api;
+
+/**
+ * Семейства эндпоинтов AccuWeather — единица группировки для нагрузки, кэша и метрик.
+ */
+enum EndpointFamily {
+    LOCATIONS("/locations/"),
+    CURRENT_CONDITIONS("/currentconditions/"),
+    FORECASTS("/forecasts/"),
+    INDICES("/indices/"),
+    ALERTS("/alerts/");
+
+    final String prefix;
+
+    EndpointFamily(String prefix) {
+        this.prefix = prefix;
+    }
+
+    /** @param path путь или шаблон пути запроса; null — путь не из AccuWeather API */
+    static EndpointFamily of(String path) {
+        if (path != null) {
+            for (EndpointFamily family : values()) {
+                if (path.startsWith(family.prefix)) return family;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,178 @@
+package study.api;
+
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Метрики вызовов AccuWeather по шаблонам эндпоинтов (/forecasts/v1/daily/{days}/{key}):
+ * задержка, число запросов и байтов ответа, разбивка по статусам, доля ответов из кэша
+ * и запросы в полёте. Выгружаются снимком в текстовом формате Prometheus.
+ * <p>
+ * Запись без блокировок и аллокаций: счётчики — {@link LongAdder}, задержка — {@link LatencyHistogram},
+ * статус переводится в индекс массива. Аллоцирует только первый вызов нового шаблона.
+ * Фильтр ставится первым в списке — тогда в метрики попадают и ответы кэша, и время остальных фильтров.
+ * Каждая попытка {@link QuotaGovernor} считается отдельным запросом: квоту тратит каждая.
+ */
+final class EndpointMetrics implements Filter {
+
+    static final String PREFIX = "accuweather_";
+    /** Статусы, которые считаются отдельно; остальные — в other, исключения транспорта — в error. */
+    static final int[] STATUSES = {200, 204, 304, 401, 403, 404, 429, 500, 503};
+    static final int OTHER = STATUSES.length;
+    static final int ERROR = STATUSES.length + 1;
+    static final double[] QUANTILES = {0.5, 0.9, 0.99};
+
+    private static final EndpointMetrics SHARED = new EndpointMetrics();
+
+    static final class Endpoint {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder requests = new LongAdder();
+        final LongAdder responseBytes = new LongAdder();
+        final LongAdder cacheHits = new LongAdder();
+        final LongAdder inFlight = new LongAdder();
+        final LongAdder[] statuses = new LongAdder[ERROR + 1];
+
+        Endpoint() {
+            for (int i = 0; i < statuses.length; i++) statuses[i] = new LongAdder();
+        }
+
+        long status(int code) {
+            return statuses[statusIndex(code)].sum();
+        }
+
+        double cacheHitRatio() {
+            long n = requests.sum();
+            return n == 0 ? 0 : (double) cacheHits.sum() / n;
+        }
+    }
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    /** Общий экземпляр на JVM: его передают в клиенты и из него выгружают снимок. */
+    static EndpointMetrics shared() {
+        return SHARED;
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification req, FilterableResponseSpecification res, FilterContext ctx) {
+        Endpoint endpoint = endpoint(req.getUserDefinedPath());
+        endpoint.requests.increment();
+        endpoint.inFlight.increment();
+        long start = System.nanoTime();
+        try {
+            Response response = ctx.next(req, res);
+            endpoint.statuses[statusIndex(response.statusCode())].increment();
+            endpoint.responseBytes.add(response.asByteArray().length);
+            if (response.getHeader(ResponseCache.CACHE_HEADER) != null) endpoint.cacheHits.increment();
+            return response;
+        } catch (Exception e) {
+            // в том числе необъявленные IOException из Rest Assured: отказ в соединении, обрыв
+            endpoint.statuses[ERROR].increment();
+            throw e;
+        } finally {
+            endpoint.latency.record((System.nanoTime() - start) / 1_000);
+            endpoint.inFlight.decrement();
+        }
+    }
+
+    /** @param template шаблон пути; null (запрос по полному URL) считается как "unknown" */
+    Endpoint endpoint(String template) {
+        String key = template != null ? template : "unknown";
+        Endpoint endpoint = endpoints.get(key);
+        return endpoint != null ? endpoint : endpoints.computeIfAbsent(key, t -> new Endpoint());
+    }
+
+    static int statusIndex(int code) {
+        for (int i = 0; i < STATUSES.length; i++) {
+            if (STATUSES[i] == code) return i;
+        }
+        return OTHER;
+    }
+
+    // ------- выгрузка --------
+
+    /** Снимок в текстовом формате Prometheus 0.0.4; у каждой серии метки endpoint и family. */
+    String prometheus() {
+        Map<String, Endpoint> sorted = new TreeMap<>(endpoints);
+        StringBuilder out = new StringBuilder(4096);
+
+        header(out, "requests_total", "counter", "Requests sent, including retries and cache hits");
+        sorted.forEach((t, e) -> sample(out, "requests_total", t, null, e.requests.sum()));
+
+        header(out, "responses_total", "counter", "Responses by HTTP status; error means no response");
+        sorted.forEach((t, e) -> {
+            for (int i = 0; i <= ERROR; i++) {
+                long n = e.statuses[i].sum();
+                if (n == 0) continue;
+                String status = i == OTHER ? "other" : i == ERROR ? "error" : String.valueOf(STATUSES[i]);
+                sample(out, "responses_total", t, "status=\"" + status + "\"", n);
+            }
+        });
+
+        header(out, "response_bytes_total", "counter", "Decoded response body bytes");
+        sorted.forEach((t, e) -> sample(out, "response_bytes_total", t, null, e.responseBytes.sum()));
+
+        header(out, "cache_hits_total", "counter", "Responses served by ResponseCache without a full response");
+        sorted.forEach((t, e) -> sample(out, "cache_hits_total", t, null, e.cacheHits.sum()));
+
+        header(out, "cache_hit_ratio", "gauge", "Share of requests served by ResponseCache");
+        sorted.forEach((t, e) -> sample(out, "cache_hit_ratio", t, null, e.cacheHitRatio()));
+
+        header(out, "in_flight", "gauge", "Requests currently in progress");
+        sorted.forEach((t, e) -> sample(out, "in_flight", t, null, e.inFlight.sum()));
+
+        header(out, "request_duration_seconds", "summary", "Request latency");
+        sorted.forEach((t, e) -> {
+            for (double q : QUANTILES) {
+                sample(out, "request_duration_seconds", t, "quantile=\"" + q + "\"",
+                        e.latency.percentile(q * 100) / 1e6);
+            }
+            sample(out, "request_duration_seconds_sum", t, null, e.latency.mean() * e.latency.count() / 1e6);
+            sample(out, "request_duration_seconds_count", t, null, e.latency.count());
+        });
+        return out.toString();
+    }
+
+    void writeTo(Path file) {
+        try {
+            if (file.getParent() != null) Files.createDirectories(file.getParent());
+            Files.writeString(file, prometheus());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write metrics to " + file, e);
+        }
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(PREFIX).append(name).append(' ').append(help).append('\n')
+                .append("# TYPE ").append(PREFIX).append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String template, String extraLabel, double value) {
+        EndpointFamily family = EndpointFamily.of(template);
+        out.append(PREFIX).append(name).append("{endpoint=\"").append(escape(template))
+                .append("\",family=\"").append(family == null ? "other" : family.name().toLowerCase(Locale.ROOT))
+                .append('"');
+        if (extraLabel != null) out.append(',').append(extraLabel);
+        out.append("} ");
+        if (value == Math.rint(value) && !Double.isInfinite(value)) out.append((long) value);
+        else out.append(value);
+        out.append('\n');
+    }
+
+    private static String escape(String label) {
+        return label.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
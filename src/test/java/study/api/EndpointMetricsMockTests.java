@@ -0,0 +1,82 @@
+package study.api;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import org.junit.jupiter.api.*;
+
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Метрики по шаблонам эндпоинтов против WireMock и формат выгрузки Prometheus.
+ */
+public class EndpointMetricsMockTests {
+
+    static final String DAILY = "/forecasts/v1/daily/{days}/{key}";
+    static final String ALERTS = "/alerts/v1/{key}";
+
+    WireMockServer wm;
+    EndpointMetrics metrics;
+    AccuWeatherClient client;
+
+    @BeforeEach
+    void start() {
+        wm = new WireMockServer(options().dynamicPort());
+        wm.start();
+        MockStub.registerAll(wm);
+        metrics = new EndpointMetrics();
+        client = new AccuWeatherClient("http://localhost:" + wm.port(), "TEST", metrics, new ResponseCache());
+    }
+
+    @AfterEach
+    void stop() {
+        wm.stop();
+    }
+
+    @Test @DisplayName("Requests, statuses, bytes and cache hits are counted per template")
+    void countsPerTemplate() {
+        client.dailyForecast("294021", 5);
+        client.dailyForecast("294021", 5);
+        client.alerts("not-a-key");
+
+        EndpointMetrics.Endpoint daily = metrics.endpoint(DAILY);
+        assertThat(daily.requests.sum(), is(2L));
+        assertThat(daily.status(200), is(2L));
+        assertThat(daily.cacheHitRatio(), is(0.5));
+        assertThat(daily.responseBytes.sum(), is(2L * MockFixtures.bytes(MockStub.DAILY_5DAY.fixture).length));
+        assertThat(daily.latency.count(), is(2L));
+        assertThat(daily.inFlight.sum(), is(0L));
+        assertThat(metrics.endpoint(ALERTS).status(404), is(1L));
+    }
+
+    @Test @DisplayName("Refused connection is counted as an error")
+    void connectionFailureIsAnError() {
+        AccuWeatherClient dead = new AccuWeatherClient(MockServers.unreachableUrl(), "TEST", metrics);
+
+        Assertions.assertThrows(Exception.class, () -> dead.alerts("294021"));
+
+        EndpointMetrics.Endpoint alerts = metrics.endpoint(ALERTS);
+        assertThat(alerts.statuses[EndpointMetrics.ERROR].sum(), is(1L));
+        assertThat(alerts.inFlight.sum(), is(0L));
+        assertThat(metrics.prometheus(), containsString(
+                "accuweather_responses_total{endpoint=\"/alerts/v1/{key}\",family=\"alerts\",status=\"error\"} 1\n"));
+    }
+
+    @Test @DisplayName("Snapshot is valid Prometheus text with endpoint and family labels")
+    void prometheusSnapshot() {
+        client.dailyForecast("294021", 5);
+        client.alerts("not-a-key");
+
+        String text = metrics.prometheus();
+
+        assertThat(text, containsString("# TYPE accuweather_requests_total counter"));
+        assertThat(text, containsString(
+                "accuweather_requests_total{endpoint=\"/forecasts/v1/daily/{days}/{key}\",family=\"forecasts\"} 1\n"));
+        assertThat(text, containsString(
+                "accuweather_responses_total{endpoint=\"/alerts/v1/{key}\",family=\"alerts\",status=\"404\"} 1\n"));
+        assertThat(text, containsString("accuweather_request_duration_seconds{endpoint=\"/alerts/v1/{key}\",family=\"alerts\",quantile=\"0.99\"}"));
+        for (String line : text.split("\n")) {
+            assertThat(line, anyOf(startsWith("# "), matchesPattern("accuweather_\\w+\\{(\\w+=\"[^\"]*\",?)+} [0-9.E-]+")));
+        }
+    }
+}
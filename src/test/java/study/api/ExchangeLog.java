@@ -0,0 +1,162 @@
+package study.api;
+
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.http.Header;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Лёгкое логирование запросов вместо RequestLoggingFilter/ResponseLoggingFilter.
+ * Ошибки (статус >= 400 или исключение) пишутся полностью — запрос, заголовки, тело ответа;
+ * успешные обмены — одной строкой и только каждый N-й. Запись идёт в фоновом потоке
+ * через ограниченную очередь: если консоль не успевает, сообщения отбрасываются и считаются,
+ * а поток запроса никогда не ждёт I/O. Последние обмены всегда доступны в кольцевом буфере.
+ * <p>
+ * Один общий экземпляр {@link #shared()} на JVM — его и передают в клиенты.
+ */
+final class ExchangeLog implements Filter {
+
+    static final int DEFAULT_SAMPLE_EVERY = Integer.getInteger("log.sample", 100);
+    static final int DEFAULT_RECENT = 256;
+    static final int QUEUE_CAPACITY = 4096;
+
+    private static final ExchangeLog SHARED = new ExchangeLog(DEFAULT_SAMPLE_EVERY, DEFAULT_RECENT, System.out);
+
+    /** Краткая запись об обмене для кольцевого буфера. */
+    record Exchange(String method, String uri, int status, long micros) {
+        @Override
+        public String toString() {
+            return method + " " + uri + " -> " + (status < 0 ? "ERROR" : status)
+                    + " (" + micros / 1000.0 + " ms)";
+        }
+    }
+
+    private final int sampleEvery;
+    private final AtomicReferenceArray<Exchange> recent;
+    private final AtomicLong sequence = new AtomicLong();
+    private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    final LongAdder dropped = new LongAdder();
+
+    /** @param sampleEvery успешный обмен логируется один раз на sampleEvery; 0 — не логируется */
+    ExchangeLog(int sampleEvery, int recentSize, PrintStream out) {
+        this.sampleEvery = sampleEvery;
+        this.recent = new AtomicReferenceArray<>(recentSize);
+        Thread writer = new Thread(() -> write(out), "exchange-log");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    static ExchangeLog shared() {
+        return SHARED;
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification req, FilterableResponseSpecification res, FilterContext ctx) {
+        long start = System.nanoTime();
+        long seq = sequence.getAndIncrement();
+        Response response;
+        try {
+            response = ctx.next(req, res);
+        } catch (Exception e) {
+            // сбои транспорта — необъявленные IOException из Rest Assured — тоже пишутся
+            Exchange exchange = remember(seq, req, -1, start);
+            enqueue("FAILED " + exchange + "\n" + requestDetails(req) + e);
+            throw e;
+        }
+        Exchange exchange = remember(seq, req, response.statusCode(), start);
+        if (response.statusCode() >= 400) {
+            enqueue("FAILED " + exchange + "\n" + requestDetails(req) + responseDetails(req, response));
+        } else if (sampleEvery > 0 && seq % sampleEvery == 0) {
+            enqueue(exchange.toString());
+        }
+        return response;
+    }
+
+    /** Последние обмены, от старых к новым. */
+    List<Exchange> recent() {
+        List<Exchange> result = new ArrayList<>(recent.length());
+        long end = sequence.get();
+        for (long seq = Math.max(0, end - recent.length()); seq < end; seq++) {
+            Exchange exchange = recent.get((int) (seq % recent.length()));
+            if (exchange != null) result.add(exchange);
+        }
+        return result;
+    }
+
+    /** Ждёт, пока фоновый поток запишет всё, что уже в очереди. */
+    void flush() throws InterruptedException {
+        CountDownLatch written = new CountDownLatch(1);
+        queue.put(written);
+        written.await(10, TimeUnit.SECONDS);
+    }
+
+    private Exchange remember(long seq, FilterableRequestSpecification req, int status, long start) {
+        Exchange exchange = new Exchange(req.getMethod(), maskKey(req.getURI()), status,
+                TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+        recent.set((int) (seq % recent.length()), exchange);
+        return exchange;
+    }
+
+    private void enqueue(String message) {
+        if (!queue.offer(message)) dropped.increment();
+    }
+
+    private void write(PrintStream out) {
+        try {
+            while (true) {
+                Object item = queue.take();
+                if (item instanceof CountDownLatch latch) {
+                    out.flush();
+                    latch.countDown();
+                } else {
+                    out.println(item);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String requestDetails(FilterableRequestSpecification req) {
+        StringBuilder sb = new StringBuilder("Request headers:\n");
+        for (Header header : req.getHeaders()) {
+            sb.append("  ").append(header.getName()).append(": ").append(header.getValue()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    // заглушки и прокси могут повторять запрос в теле ошибки — ключ вырезается и оттуда
+    private static String responseDetails(FilterableRequestSpecification req, Response response) {
+        StringBuilder sb = new StringBuilder(response.getStatusLine()).append('\n');
+        for (Header header : response.getHeaders()) {
+            sb.append("  ").append(header.getName()).append(": ").append(header.getValue()).append('\n');
+        }
+        sb.append(response.asString());
+        return maskKey(req, sb.toString());
+    }
+
+    // apikey не должен попадать в логи CI
+    static String maskKey(String uri) {
+        return uri.replaceAll("apikey=[^&]*", "apikey=***");
+    }
+
+    /** Маскирует apikey запроса и в виде параметра, и сам по себе — например, в теле ответа об ошибке. */
+    static String maskKey(FilterableRequestSpecification req, String text) {
+        String masked = maskKey(text);
+        Object key = req.getQueryParams().get("apikey");
+        return key == null || key.toString().isEmpty() ? masked : masked.replace(key.toString(), "***");
+    }
+}
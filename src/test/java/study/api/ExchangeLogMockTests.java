@@ -0,0 +1,77 @@
+package study.api;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import org.junit.jupiter.api.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * ExchangeLog против WireMock: ошибки целиком, успешные обмены выборочно, кольцевой буфер.
+ */
+public class ExchangeLogMockTests {
+
+    WireMockServer wm;
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ExchangeLog log;
+    AccuWeatherClient client;
+
+    @BeforeEach
+    void start() {
+        wm = new WireMockServer(options().dynamicPort());
+        wm.start();
+        MockStub.registerAll(wm);
+        log = new ExchangeLog(3, 4, new PrintStream(out, true, StandardCharsets.UTF_8));
+        client = new AccuWeatherClient("http://localhost:" + wm.port(), "SECRET", log);
+    }
+
+    @AfterEach
+    void stop() {
+        wm.stop();
+    }
+
+    String written() throws InterruptedException {
+        log.flush();
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test @DisplayName("Failures are logged in full, successes are sampled")
+    void failuresInFullSuccessesSampled() throws InterruptedException {
+        for (int i = 0; i < 6; i++) client.currentConditions("294021");
+        client.alerts("no-such-key");
+
+        String text = written();
+        assertThat(text.split("/currentconditions/v1/294021", -1).length - 1, is(2));  // обмены 0 и 3
+        assertThat(text, containsString("FAILED GET"));
+        assertThat(text, containsString("404"));
+        assertThat(text, not(containsString("SECRET")));
+    }
+
+    @Test @DisplayName("Transport failures are logged in full")
+    void transportFailureLogged() throws InterruptedException {
+        AccuWeatherClient dead = new AccuWeatherClient(MockServers.unreachableUrl(), "SECRET", log);
+
+        Assertions.assertThrows(Exception.class, () -> dead.alerts("294021"));
+
+        String text = written();
+        assertThat(text, containsString("FAILED GET"));
+        assertThat(text, containsString("Connection refused"));
+        assertThat(text, not(containsString("SECRET")));
+        assertThat(log.recent().get(0).status(), is(-1));
+    }
+
+    @Test @DisplayName("Ring buffer keeps only the latest exchanges")
+    void ringBufferKeepsLatest() {
+        client.citiesSearch("Minsk");
+        for (int i = 0; i < 4; i++) client.currentConditions("294021");
+
+        assertThat(log.recent(), hasSize(4));
+        assertThat(log.recent().get(0).uri(), containsString("/currentconditions/"));
+        assertThat(log.recent().get(3).status(), is(200));
+    }
+}
@@ -0,0 +1,128 @@
+package study.api;
+
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
+import com.github.tomakehurst.wiremock.common.FileSource;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.extension.Parameters;
+import com.github.tomakehurst.wiremock.extension.ResponseDefinitionTransformer;
+import com.github.tomakehurst.wiremock.http.Fault;
+import com.github.tomakehurst.wiremock.http.Request;
+import com.github.tomakehurst.wiremock.http.ResponseDefinition;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Профили деградации WireMock-заглушки AccuWeather: задержки, обрывы соединения, 503, 204.
+ * Профиль применяется глобальным трансформером ко всем стабам {@link MockStub} и выбирается на прогон:
+ * -Dmock.faults=slow-tail [-Dmock.faultRate=0.05]. По умолчанию — none.
+ */
+enum FaultProfile {
+
+    /** Ответы без задержек и ошибок, как в фикстурах. */
+    NONE(0),
+    /** Доля запросов отвечает через 2 секунды — длинный хвост при быстром p50. */
+    SLOW_TAIL(0.05),
+    /** Логнормальная задержка каждого ответа: медиана 50 мс, sigma 0.5. */
+    LOGNORMAL(1),
+    /** Доля запросов обрывается TCP RST до ответа. */
+    CONNECTION_RESET(0.05),
+    /**
+     * Доля запросов получает 200 и Content-Length полного тела, но только первую половину тела,
+     * после чего соединение закрывается.
+     */
+    PARTIAL_BODY(0.05),
+    /** Доля запросов получает 503 ServiceUnavailable без признаков исчерпания квоты. */
+    INTERMITTENT_503(0.1),
+    /** /alerts/v1/{key} всегда отвечает 204 — предупреждений нет; остальные эндпоинты как есть. */
+    ALERTS_204(1);
+
+    static final String PROPERTY = "mock.faults";
+    static final long SLOW_TAIL_MILLIS = 2000;
+    static final double LOGNORMAL_MEDIAN_MILLIS = 50;
+    static final double LOGNORMAL_SIGMA = 0.5;
+
+    final double defaultRate;
+
+    FaultProfile(double defaultRate) {
+        this.defaultRate = defaultRate;
+    }
+
+    /** Профиль текущего прогона из -Dmock.faults (имя в любом регистре, '-' или '_'). */
+    static FaultProfile current() {
+        String name = System.getProperty(PROPERTY, "none").trim();
+        return name.isEmpty() ? NONE : valueOf(name.toUpperCase(Locale.ROOT).replace('-', '_'));
+    }
+
+    /** Подключает профиль к конфигурации сервера; для NONE конфигурация не меняется. */
+    WireMockConfiguration applyTo(WireMockConfiguration options) {
+        if (this == NONE) return options;
+        double rate = Double.parseDouble(System.getProperty("mock.faultRate", String.valueOf(defaultRate)));
+        return options.extensions(new Injector(this, rate));
+    }
+
+    ResponseDefinition apply(Request request, ResponseDefinition stub, double rate) {
+        if (this == ALERTS_204) {
+            return request.getUrl().startsWith("/alerts/")
+                    ? new ResponseDefinitionBuilder().withStatus(204).build()
+                    : stub;
+        }
+        if (ThreadLocalRandom.current().nextDouble() >= rate) return stub;
+        ResponseDefinitionBuilder response = ResponseDefinitionBuilder.like(stub);
+        switch (this) {
+            case SLOW_TAIL:
+                return response.withFixedDelay((int) SLOW_TAIL_MILLIS).build();
+            case LOGNORMAL:
+                return response.withLogNormalRandomDelay(LOGNORMAL_MEDIAN_MILLIS, LOGNORMAL_SIGMA).build();
+            case CONNECTION_RESET:
+                return response.withFault(Fault.CONNECTION_RESET_BY_PEER).build();
+            case PARTIAL_BODY:
+                return truncated(response, stub.getByteBody());
+            case INTERMITTENT_503:
+                return new ResponseDefinitionBuilder()
+                        .withStatus(503)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"Code\":\"ServiceUnavailable\",\"Message\":\"Service is temporarily unavailable.\"}")
+                        .build();
+            default:
+                return stub;
+        }
+    }
+
+    // Jetty закрывает соединение, если записано меньше объявленного Content-Length;
+    // identity не даёт gzip-обработчику пересжать тело и убрать Content-Length
+    private static ResponseDefinition truncated(ResponseDefinitionBuilder response, byte[] body) {
+        if (body == null || body.length < 2) return response.withFault(Fault.CONNECTION_RESET_BY_PEER).build();
+        return response
+                .withHeader("Content-Length", String.valueOf(body.length))
+                .withHeader("Content-Encoding", "identity")
+                .withBody(Arrays.copyOf(body, body.length / 2))
+                .build();
+    }
+
+    /** Глобальный трансформер WireMock: пропускает каждый ответ стаба через профиль. */
+    static final class Injector extends ResponseDefinitionTransformer {
+
+        private final FaultProfile profile;
+        private final double rate;
+
+        Injector(FaultProfile profile, double rate) {
+            this.profile = profile;
+            this.rate = rate;
+        }
+
+        @Override
+        public ResponseDefinition transform(Request request, ResponseDefinition responseDefinition,
+                                            FileSource files, Parameters parameters) {
+            // 404 «стаб не найден» не трогаем — это ошибка теста, а не деградация API
+            if (responseDefinition.getStatus() == 404) return responseDefinition;
+            return profile.apply(request, responseDefinition, rate);
+        }
+
+        @Override
+        public String getName() {
+            return "fault-profile-" + profile.name().toLowerCase(Locale.ROOT);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package study.api;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import io.restassured.response.Response;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.util.Arrays;
+
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Профили деградации глазами клиента: задержка, доля 503, обрыв соединения, обрезанное тело, 204.
+ */
+public class FaultProfileMockTests {
+
+    WireMockServer wm;
+    AccuWeatherClient client;
+
+    void start(FaultProfile profile, double rate) {
+        wm = new WireMockServer(options().dynamicPort().extensions(new FaultProfile.Injector(profile, rate)));
+        wm.start();
+        MockStub.registerAll(wm);
+        client = new AccuWeatherClient("http://localhost:" + wm.port(), "TEST");
+    }
+
+    @AfterEach
+    void stop() {
+        if (wm != null) wm.stop();
+    }
+
+    long millis(Runnable call) {
+        long start = System.nanoTime();
+        call.run();
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    @Test @DisplayName("slow-tail delays affected responses by two seconds")
+    void slowTail() {
+        start(FaultProfile.SLOW_TAIL, 1);
+
+        long elapsed = millis(() -> client.currentConditions("294021").then().statusCode(200));
+
+        assertThat(elapsed, greaterThanOrEqualTo(FaultProfile.SLOW_TAIL_MILLIS));
+    }
+
+    @Test @DisplayName("lognormal delays every response around its median")
+    void lognormal() {
+        start(FaultProfile.LOGNORMAL, 1);
+        client.currentConditions("294021");   // прогрев соединения
+
+        long[] samples = new long[9];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = millis(() -> client.currentConditions("294021").then().statusCode(200));
+        }
+        Arrays.sort(samples);
+
+        // медиана 50 мс, sigma 0.5: медиана из 9 почти наверняка в 20..150 мс
+        assertThat(samples[4], allOf(greaterThanOrEqualTo(20L), lessThan(150L)));
+    }
+
+    @Test @DisplayName("intermittent-503 fails about the configured share of calls")
+    void intermittent503() {
+        start(FaultProfile.INTERMITTENT_503, 0.3);
+
+        int unavailable = 0;
+        for (int i = 0; i < 100; i++) {
+            Response response = client.currentConditions("294021");
+            assertThat(response.statusCode(), anyOf(is(200), is(503)));
+            if (response.statusCode() == 503) {
+                unavailable++;
+                assertThat(QuotaGovernor.quotaExceeded(response), is(false));
+            }
+        }
+
+        assertThat(unavailable, allOf(greaterThanOrEqualTo(10), lessThanOrEqualTo(50)));
+    }
+
+    @Test @DisplayName("connection-reset fails the call without a response")
+    void connectionReset() {
+        start(FaultProfile.CONNECTION_RESET, 1);
+
+        Assertions.assertThrows(Exception.class, () -> client.currentConditions("294021"));
+    }
+
+    @Test @DisplayName("partial-body sends 200 and the full Content-Length, then cuts the body")
+    void partialBody() throws IOException {
+        start(FaultProfile.PARTIAL_BODY, 1);
+        byte[] fixture = MockFixtures.bytes(MockStub.DAILY_5DAY.fixture);
+
+        HttpURLConnection connection = (HttpURLConnection) URI.create("http://localhost:" + wm.port()
+                + "/forecasts/v1/daily/5day/294021?metric=true&apikey=TEST").toURL().openConnection();
+        assertThat(connection.getResponseCode(), is(200));
+        assertThat(connection.getContentLengthLong(), is((long) fixture.length));
+        byte[] received = new byte[fixture.length];
+        int read = 0;
+        try (InputStream body = connection.getInputStream()) {
+            for (int n; read < received.length && (n = body.read(received, read, received.length - read)) > 0; ) {
+                read += n;
+            }
+        } catch (IOException e) {
+            // обрыв посреди тела — тоже ожидаемый исход
+        }
+
+        assertThat(read, is(fixture.length / 2));
+        assertThat(Arrays.copyOf(received, read), is(Arrays.copyOf(fixture, read)));
+        Assertions.assertThrows(Exception.class, () -> client.dailyForecast("294021", 5).asByteArray());
+    }
+
+    @Test @DisplayName("Load driver reports resets and cut bodies as IO errors")
+    void loadDriverSeesTransportFaults() throws InterruptedException {
+        for (FaultProfile profile : new FaultProfile[]{FaultProfile.CONNECTION_RESET, FaultProfile.PARTIAL_BODY}) {
+            start(profile, 1);
+            LoadDriver driver = new LoadDriver(20, 2, 1);
+
+            driver.run(AccuWeatherClient.withoutRetries("http://localhost:" + wm.port(), "TEST"));
+
+            assertThat(profile.name(), driver.count(LoadDriver.IO_ERROR), is(20L));
+            wm.stop();
+        }
+    }
+
+    @Test @DisplayName("alerts-204 empties alerts and leaves other endpoints alone")
+    void alerts204() {
+        start(FaultProfile.ALERTS_204, 1);
+
+        client.alerts("294021").then().statusCode(204);
+        client.currentConditions("294021").then().statusCode(200);
+    }
+}
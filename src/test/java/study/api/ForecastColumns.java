@@ -0,0 +1,243 @@
+package study.api;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Прогноз в колоночном виде: по массиву примитивов на поле вместо объекта на каждый период.
+ * Подходит для дневных (/daily), почасовых (/hourly) и четвертьсуточных (/quarterday) прогнозов;
+ * у почасовых и четвертьсуточных без Minimum/Maximum минимум и максимум совпадают.
+ * <p>
+ * Время — минуты Unix (int хватает до 6000-х годов), 0 — в ответе нет даты.
+ * Температуры, вероятность осадков, скорость ветра (Wind.Speed) и количество осадков (TotalLiquid) —
+ * float, NaN — нет в ответе (ветер и осадки приходят с details=true). Единицы и фразы погоды
+ * интернированы: единица — одна строка на колонку, фраза — int-код в общей таблице.
+ * Декодируется прямо из потока токенов: {@link WeatherJson#dailyColumns}, {@link WeatherJson#periodColumns}.
+ */
+final class ForecastColumns {
+
+    private static final Map<String, Integer> PHRASE_IDS = new ConcurrentHashMap<>();
+    private static final List<String> PHRASES = new CopyOnWriteArrayList<>();
+
+    final String headline;
+    final String temperatureUnit;
+    /** Единицы ветра и осадков; null — колонки в ответе не было. */
+    final String windSpeedUnit;
+    final String liquidUnit;
+    private final int size;
+    private final int[] epochMinutes;
+    private final float[] minimum;
+    private final float[] maximum;
+    private final float[] precipitationProbability;
+    private final float[] windSpeed;
+    private final float[] liquid;
+    private final int[] phrases;
+    private final int[] nightPhrases;
+
+    private ForecastColumns(Builder b) {
+        this.headline = b.headline;
+        this.temperatureUnit = b.unit;
+        this.windSpeedUnit = b.windSpeedUnit;
+        this.liquidUnit = b.liquidUnit;
+        this.size = b.size;
+        this.epochMinutes = Arrays.copyOf(b.epochMinutes, b.size);
+        this.minimum = Arrays.copyOf(b.minimum, b.size);
+        this.maximum = Arrays.copyOf(b.maximum, b.size);
+        this.precipitationProbability = Arrays.copyOf(b.precipitation, b.size);
+        this.windSpeed = Arrays.copyOf(b.windSpeed, b.size);
+        this.liquid = Arrays.copyOf(b.liquid, b.size);
+        this.phrases = Arrays.copyOf(b.phrases, b.size);
+        this.nightPhrases = Arrays.copyOf(b.nightPhrases, b.size);
+    }
+
+    // Тот же прогноз в других единицах: неизменяемые колонки, кроме переведённых, общие
+    private ForecastColumns(ForecastColumns source, String temperatureUnit, float[] minimum, float[] maximum,
+                            String windSpeedUnit, float[] windSpeed, String liquidUnit, float[] liquid) {
+        this.headline = source.headline;
+        this.temperatureUnit = temperatureUnit;
+        this.windSpeedUnit = windSpeedUnit;
+        this.liquidUnit = liquidUnit;
+        this.size = source.size;
+        this.epochMinutes = source.epochMinutes;
+        this.minimum = minimum;
+        this.maximum = maximum;
+        this.precipitationProbability = source.precipitationProbability;
+        this.windSpeed = windSpeed;
+        this.liquid = liquid;
+        this.phrases = source.phrases;
+        this.nightPhrases = source.nightPhrases;
+    }
+
+    /**
+     * Прогноз в имперских единицах (°F, mi/h, in) из метрического (metric=true).
+     * Колонки, уже имперские или без единицы, не трогаются; если переводить нечего — возвращается this.
+     */
+    ForecastColumns imperial() {
+        return convert(true);
+    }
+
+    /** Обратный к {@link #imperial()}: °F, mi/h, in в °C, km/h, mm. */
+    ForecastColumns metric() {
+        return convert(false);
+    }
+
+    private ForecastColumns convert(boolean toImperial) {
+        boolean temperature = convertible(Units.Quantity.TEMPERATURE, temperatureUnit, toImperial);
+        boolean wind = convertible(Units.Quantity.SPEED, windSpeedUnit, toImperial);
+        boolean rain = convertible(Units.Quantity.PRECIPITATION, liquidUnit, toImperial);
+        if (!temperature && !wind && !rain) return this;
+        return new ForecastColumns(this,
+                temperature ? target(Units.Quantity.TEMPERATURE, toImperial) : temperatureUnit,
+                temperature ? convert(Units.Quantity.TEMPERATURE, minimum, toImperial) : minimum,
+                temperature ? convert(Units.Quantity.TEMPERATURE, maximum, toImperial) : maximum,
+                wind ? target(Units.Quantity.SPEED, toImperial) : windSpeedUnit,
+                wind ? convert(Units.Quantity.SPEED, windSpeed, toImperial) : windSpeed,
+                rain ? target(Units.Quantity.PRECIPITATION, toImperial) : liquidUnit,
+                rain ? convert(Units.Quantity.PRECIPITATION, liquid, toImperial) : liquid);
+    }
+
+    private static boolean convertible(Units.Quantity quantity, String unit, boolean toImperial) {
+        return (toImperial ? quantity.metricUnit : quantity.imperialUnit).equals(unit);
+    }
+
+    private static String target(Units.Quantity quantity, boolean toImperial) {
+        return toImperial ? quantity.imperialUnit : quantity.metricUnit;
+    }
+
+    private float[] convert(Units.Quantity quantity, float[] column, boolean toImperial) {
+        float[] result = new float[size];
+        if (toImperial) quantity.toImperial(column, result, size);
+        else quantity.toMetric(column, result, size);
+        return result;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long epochSeconds(int i) {
+        return epochMinutes[i] * 60L;
+    }
+
+    float minimum(int i) {
+        return minimum[i];
+    }
+
+    float maximum(int i) {
+        return maximum[i];
+    }
+
+    float precipitationProbability(int i) {
+        return precipitationProbability[i];
+    }
+
+    /** Скорость ветра (для дневного прогноза — днём) в {@link #windSpeedUnit}. */
+    float windSpeed(int i) {
+        return windSpeed[i];
+    }
+
+    /** Количество осадков (TotalLiquid) в {@link #liquidUnit}. */
+    float liquid(int i) {
+        return liquid[i];
+    }
+
+    /** @return фраза погоды (IconPhrase, для дневного прогноза — дневная) или null */
+    String phrase(int i) {
+        return phrases[i] < 0 ? null : PHRASES.get(phrases[i]);
+    }
+
+    /** @return ночная фраза дневного прогноза (Night.IconPhrase) или null */
+    String nightPhrase(int i) {
+        return nightPhrases[i] < 0 ? null : PHRASES.get(nightPhrases[i]);
+    }
+
+    float minOfMinimum() {
+        float result = Float.NaN;
+        for (int i = 0; i < size; i++) {
+            if (i == 0 || minimum[i] < result) result = minimum[i];
+        }
+        return result;
+    }
+
+    float maxOfMaximum() {
+        float result = Float.NaN;
+        for (int i = 0; i < size; i++) {
+            if (i == 0 || maximum[i] > result) result = maximum[i];
+        }
+        return result;
+    }
+
+    static int phraseId(String phrase) {
+        if (phrase == null) return -1;
+        return PHRASE_IDS.computeIfAbsent(phrase, p -> {
+            synchronized (PHRASES) {
+                PHRASES.add(p);
+                return PHRASES.size() - 1;
+            }
+        });
+    }
+
+    /** Накопитель для потокового декодера; массивы растут удвоением и обрезаются в {@link #build()}. */
+    static final class Builder {
+        private String headline;
+        private String unit;
+        private String windSpeedUnit;
+        private String liquidUnit;
+        private int size;
+        private int[] epochMinutes = new int[8];
+        private float[] minimum = new float[8];
+        private float[] maximum = new float[8];
+        private float[] precipitation = new float[8];
+        private float[] windSpeed = new float[8];
+        private float[] liquid = new float[8];
+        private int[] phrases = new int[8];
+        private int[] nightPhrases = new int[8];
+
+        void headline(String headline) {
+            this.headline = headline;
+        }
+
+        void unit(String unit) {
+            if (this.unit == null && unit != null) this.unit = unit.intern();
+        }
+
+        void windSpeedUnit(String unit) {
+            if (windSpeedUnit == null && unit != null) windSpeedUnit = unit.intern();
+        }
+
+        void liquidUnit(String unit) {
+            if (liquidUnit == null && unit != null) liquidUnit = unit.intern();
+        }
+
+        void add(long epochSeconds, float min, float max, float precipitationProbability,
+                 float windSpeed, float liquid, String phrase, String nightPhrase) {
+            if (size == epochMinutes.length) {
+                int capacity = size * 2;
+                epochMinutes = Arrays.copyOf(epochMinutes, capacity);
+                minimum = Arrays.copyOf(minimum, capacity);
+                maximum = Arrays.copyOf(maximum, capacity);
+                precipitation = Arrays.copyOf(precipitation, capacity);
+                this.windSpeed = Arrays.copyOf(this.windSpeed, capacity);
+                this.liquid = Arrays.copyOf(this.liquid, capacity);
+                phrases = Arrays.copyOf(phrases, capacity);
+                nightPhrases = Arrays.copyOf(nightPhrases, capacity);
+            }
+            epochMinutes[size] = (int) (epochSeconds / 60);
+            minimum[size] = min;
+            maximum[size] = max;
+            precipitation[size] = precipitationProbability;
+            this.windSpeed[size] = windSpeed;
+            this.liquid[size] = liquid;
+            phrases[size] = phraseId(phrase);
+            nightPhrases[size] = phraseId(nightPhrase);
+            size++;
+        }
+
+        ForecastColumns build() {
+            return new ForecastColumns(this);
+        }
+    }
+}
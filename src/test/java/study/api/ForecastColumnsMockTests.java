@@ -0,0 +1,87 @@
+package study.api;
+
+import org.junit.jupiter.api.*;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Колоночная модель прогноза на фикстурах: дневной, почасовой и четвертьсуточный ответы.
+ */
+public class ForecastColumnsMockTests {
+
+    @Test @DisplayName("Daily forecast decodes into min/max columns")
+    void dailyColumns() {
+        ForecastColumns daily = WeatherJson.dailyColumns(MockFixtures.bytes(MockStub.DAILY_5DAY.fixture));
+
+        assertThat(daily.size(), is(5));
+        assertThat(daily.headline, is("Cold spell"));
+        assertThat(daily.temperatureUnit, sameInstance("C"));
+        assertThat(daily.epochSeconds(0), is(1_704_067_200L));   // 2024-01-01T00:00Z
+        assertThat(daily.minimum(0), is(-3f));
+        assertThat(daily.maximum(0), is(1f));
+        assertThat(Float.isNaN(daily.precipitationProbability(0)), is(true));
+    }
+
+    @Test @DisplayName("Hourly forecast keeps offset timestamps and interned phrases")
+    void hourlyColumns() {
+        ForecastColumns hourly = WeatherJson.periodColumns(MockFixtures.bytes(MockStub.HOURLY_24HOUR.fixture));
+
+        assertThat(hourly.size(), is(4));
+        assertThat(hourly.epochSeconds(0), is(1_704_060_000L));  // 2024-01-01T01:00+03:00
+        assertThat(hourly.minimum(0), is(hourly.maximum(0)));
+        assertThat(hourly.phrase(0), is("Cloudy"));
+        assertThat(ForecastColumns.phraseId(hourly.phrase(0)), is(ForecastColumns.phraseId("Cloudy")));
+    }
+
+    @Test @DisplayName("Quarter-day periods without dates are still decoded")
+    void quarterDayColumns() {
+        ForecastColumns quarters = WeatherJson.periodColumns(MockFixtures.bytes(MockStub.QUARTERDAY_1DAY.fixture));
+
+        assertThat(quarters.size(), is(4));
+        assertThat(quarters.epochSeconds(3), is(0L));
+        assertThat(quarters.minOfMinimum(), is(-3f));
+        assertThat(quarters.maxOfMaximum(), is(2f));
+        assertThat(quarters.phrase(3), is("Clear"));
+    }
+
+    @Test @DisplayName("Imperial forecast is derived locally from the metric one")
+    void imperialFromMetric() {
+        ForecastColumns metric = WeatherJson.dailyColumns(MockFixtures.bytes(MockStub.DAILY_5DAY.fixture));
+        ForecastColumns imperial = metric.imperial();
+
+        assertThat(imperial.temperatureUnit, is("F"));
+        assertThat((double) imperial.minimum(0), closeTo(26.6, 1e-4));   // -3 °C
+        assertThat((double) imperial.maximum(0), closeTo(33.8, 1e-4));   // 1 °C
+        assertThat(imperial.epochSeconds(4), is(metric.epochSeconds(4)));
+        assertThat(imperial.imperial(), sameInstance(imperial));
+        assertThat((double) imperial.metric().minimum(0), closeTo(-3, 1e-4));
+    }
+
+    @Test @DisplayName("Wind and precipitation columns are converted with the temperatures")
+    void imperialWindAndPrecipitation() {
+        String hourly = "[{\"EpochDateTime\": 1704060000, \"Temperature\": {\"Value\": 0, \"Unit\": \"C\"},"
+                + " \"Wind\": {\"Speed\": {\"Value\": 16.1, \"Unit\": \"km/h\"}, \"Direction\": {\"Degrees\": 270}},"
+                + " \"TotalLiquid\": {\"Value\": 2.54, \"Unit\": \"mm\"}}]";
+        ForecastColumns metric = WeatherJson.periodColumns(hourly.getBytes(StandardCharsets.UTF_8));
+        ForecastColumns imperial = metric.imperial();
+
+        assertThat(metric.windSpeedUnit, is("km/h"));
+        assertThat(imperial.windSpeedUnit, is("mi/h"));
+        assertThat((double) imperial.windSpeed(0), closeTo(10.0, 0.01));
+        assertThat(imperial.liquidUnit, is("in"));
+        assertThat((double) imperial.liquid(0), closeTo(0.1, 1e-4));
+        assertThat((double) imperial.maximum(0), closeTo(32, 1e-4));
+        assertThat((double) imperial.metric().windSpeed(0), closeTo(16.1, 1e-3));
+    }
+
+    @Test @DisplayName("Forecast without details has no wind or precipitation unit")
+    void noDetailsNoWind() {
+        ForecastColumns daily = WeatherJson.dailyColumns(MockFixtures.bytes(MockStub.DAILY_5DAY.fixture));
+
+        assertThat(daily.windSpeedUnit, nullValue());
+        assertThat(Float.isNaN(daily.imperial().windSpeed(0)), is(true));
+    }
+}
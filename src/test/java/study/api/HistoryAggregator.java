@@ -0,0 +1,61 @@
+package study.api;
+
+import io.restassured.response.Response;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Инкрементальная история текущей погоды по локациям поверх {@link ConditionsHistory}.
+ * Окно 24 часа скачивается только для новой или давно не обновлявшейся локации;
+ * дальше достаточно /historical/6 (пропуск до 6 часов) или одного /currentconditions.
+ */
+final class HistoryAggregator {
+
+    static final long HOUR = 3600;
+    static final long DAY = 24 * HOUR;
+    static final int DEFAULT_CAPACITY = 48;
+
+    private final AccuWeatherClient client;
+    private final LongSupplier nowEpochSeconds;
+    private final int capacity;
+    private final Map<String, ConditionsHistory> series = new ConcurrentHashMap<>();
+
+    HistoryAggregator(AccuWeatherClient client) {
+        this(client, () -> System.currentTimeMillis() / 1000, DEFAULT_CAPACITY);
+    }
+
+    /** @param nowEpochSeconds текущее время в секундах Unix (подменяется в тестах) */
+    HistoryAggregator(AccuWeatherClient client, LongSupplier nowEpochSeconds, int capacity) {
+        this.client = client;
+        this.nowEpochSeconds = nowEpochSeconds;
+        this.capacity = capacity;
+    }
+
+    /** Дотягивает недостающие наблюдения локации самым коротким подходящим запросом. */
+    ConditionsHistory refresh(String locationKey) {
+        ConditionsHistory history = series.computeIfAbsent(locationKey, k -> new ConditionsHistory(capacity));
+        long gap = nowEpochSeconds.getAsLong() - history.newestEpoch();
+        Response response;
+        if (history.size() == 0 || gap > 6 * HOUR) {
+            response = client.historicalConditions(locationKey, 24);
+        } else if (gap > HOUR) {
+            response = client.historicalConditions(locationKey, 6);
+        } else {
+            response = client.currentConditions(locationKey);
+        }
+        if (response.statusCode() == 200) history.merge(response.asByteArray());
+        return history;
+    }
+
+    /** Сводка за последние 24 часа без обращения к API; null — локация ещё не загружалась. */
+    ConditionsHistory.Window last24h(String locationKey) {
+        ConditionsHistory history = series.get(locationKey);
+        return history == null ? null : history.window(nowEpochSeconds.getAsLong() - DAY);
+    }
+
+    ConditionsHistory history(String locationKey) {
+        return series.get(locationKey);
+    }
+}
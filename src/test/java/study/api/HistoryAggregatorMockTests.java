@@ -0,0 +1,77 @@
+package study.api;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import org.junit.jupiter.api.*;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Инкрементальная история против фикстур historical_24 (2 наблюдения) и historical_6 (3 более новых).
+ */
+public class HistoryAggregatorMockTests {
+
+    static final long NEWEST_24H = 1704052800L;
+    static final long NEWEST_6H = 1704092400L;
+
+    WireMockServer wm;
+    AtomicLong now = new AtomicLong(NEWEST_24H + 600);
+    HistoryAggregator aggregator;
+
+    @BeforeEach
+    void start() {
+        wm = new WireMockServer(options().dynamicPort());
+        wm.start();
+        MockStub.registerAll(wm);
+        aggregator = new HistoryAggregator(new AccuWeatherClient("http://localhost:" + wm.port(), "TEST"),
+                now::get, HistoryAggregator.DEFAULT_CAPACITY);
+    }
+
+    @AfterEach
+    void stop() {
+        wm.stop();
+    }
+
+    @Test @DisplayName("Refreshes fetch the shortest window that covers the gap")
+    void fetchesOnlyMissingWindow() {
+        aggregator.refresh("294021");                 // пусто — окно 24 часа
+        now.set(NEWEST_24H + 2 * HistoryAggregator.HOUR);
+        aggregator.refresh("294021");                 // пропуск 2 часа — окно 6 часов
+        now.set(NEWEST_6H + 600);
+        aggregator.refresh("294021");                 // свежие данные — только текущая погода
+
+        wm.verify(1, getRequestedFor(urlPathEqualTo("/currentconditions/v1/294021/historical/24")));
+        wm.verify(1, getRequestedFor(urlPathEqualTo("/currentconditions/v1/294021/historical/6")));
+        wm.verify(1, getRequestedFor(urlPathEqualTo("/currentconditions/v1/294021")));
+        assertThat(aggregator.history("294021").size(), is(5));
+        assertThat(aggregator.history("294021").newestEpoch(), is(NEWEST_6H));
+    }
+
+    @Test @DisplayName("Rolling window statistics come from the ring buffer")
+    void rollingStatistics() {
+        aggregator.refresh("294021");
+        now.set(NEWEST_24H + 2 * HistoryAggregator.HOUR);
+        aggregator.refresh("294021");
+
+        ConditionsHistory.Window day = aggregator.last24h("294021");
+        assertThat(day.count(), is(5));
+        assertThat(day.min(), is(-2f));
+        assertThat(day.max(), is(2f));
+        assertThat(day.mean(), closeTo(0.4, 1e-9));
+    }
+
+    @Test @DisplayName("Ring buffer keeps only the newest observations")
+    void ringBufferEvictsOldest() {
+        ConditionsHistory history = new ConditionsHistory(3);
+        history.merge(MockFixtures.bytes(MockStub.HISTORICAL_24H.fixture));
+        history.merge(MockFixtures.bytes(MockStub.HISTORICAL_6H.fixture));
+        history.merge(MockFixtures.bytes(MockStub.HISTORICAL_6H.fixture));   // повтор ничего не добавляет
+
+        assertThat(history.size(), is(3));
+        assertThat(history.window(0).min(), is(0f));
+    }
+}
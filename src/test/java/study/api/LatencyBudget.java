@@ -0,0 +1,58 @@
+package study.api;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Properties;
+
+/**
+ * Бюджет задержки вызова: верхние границы p50/p95/p99 в миллисекундах.
+ * Берётся из latency-budgets.properties: сначала по имени {@link ApiCall},
+ * затем по {@link EndpointFamily}, затем default.
+ */
+record LatencyBudget(long p50, long p95, long p99) {
+
+    static final String RESOURCE = "/latency-budgets.properties";
+
+    private static final Properties BUDGETS = load();
+
+    static LatencyBudget of(ApiCall call) {
+        String value = BUDGETS.getProperty(call.name(),
+                BUDGETS.getProperty(call.family.name(), BUDGETS.getProperty("default")));
+        if (value == null) throw new IllegalStateException("No latency budget for " + call + " in " + RESOURCE);
+        return parse(value);
+    }
+
+    /** @param value "p50,p95,p99" в миллисекундах */
+    static LatencyBudget parse(String value) {
+        String[] parts = value.split(",");
+        if (parts.length != 3) throw new IllegalArgumentException("Expected p50,p95,p99 but was: " + value);
+        return new LatencyBudget(Long.parseLong(parts[0].trim()),
+                Long.parseLong(parts[1].trim()), Long.parseLong(parts[2].trim()));
+    }
+
+    /** @return описание нарушений или null, если распределение укладывается в бюджет */
+    String violations(LatencyHistogram h) {
+        StringBuilder sb = new StringBuilder();
+        check(sb, "p50", h.percentile(50), p50);
+        check(sb, "p95", h.percentile(95), p95);
+        check(sb, "p99", h.percentile(99), p99);
+        return sb.length() == 0 ? null : sb.toString();
+    }
+
+    private static void check(StringBuilder sb, String name, long micros, long budgetMillis) {
+        if (micros > budgetMillis * 1000) {
+            sb.append(String.format("%s %.1f ms > %d ms; ", name, micros / 1000.0, budgetMillis));
+        }
+    }
+
+    private static Properties load() {
+        Properties props = new Properties();
+        try (InputStream is = LatencyBudget.class.getResourceAsStream(RESOURCE)) {
+            if (is != null) props.load(is);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot load " + RESOURCE, e);
+        }
+        return props;
+    }
+}
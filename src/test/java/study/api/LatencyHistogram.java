@@ -0,0 +1,82 @@
+package study.api;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Лог-линейная гистограмма задержек в духе HdrHistogram: фиксированный массив счётчиков,
+ * относительная погрешность квантиля не больше 1/64 (~1.6%), запись без блокировок и аллокаций.
+ * Значения — в микросекундах, от 0 до ~2^40 (больше — складываются в последний бакет).
+ */
+final class LatencyHistogram {
+
+    static final int SUB_BUCKET_BITS = 7;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;  // 128 точных значений 0..127
+    static final int HALF = SUB_BUCKETS / 2;
+    static final int MAX_VALUE_BITS = 40;
+    static final int BUCKETS = HALF * (MAX_VALUE_BITS - SUB_BUCKET_BITS + 2);
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    void record(long micros) {
+        long v = Math.max(0, micros);
+        counts.incrementAndGet(Math.min(index(v), BUCKETS - 1));
+        total.increment();
+        sum.add(v);
+        max.accumulate(v);
+    }
+
+    /** Добавляет все значения другой гистограммы (для сводки по нескольким эндпоинтам). */
+    void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            long n = other.counts.get(i);
+            if (n != 0) counts.addAndGet(i, n);
+        }
+        total.add(other.total.sum());
+        sum.add(other.sum.sum());
+        max.accumulate(other.max.get());
+    }
+
+    long count() {
+        return total.sum();
+    }
+
+    long max() {
+        return max.get();
+    }
+
+    double mean() {
+        long n = total.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /** @param percentile 0..100; возвращает верхнюю границу бакета, в который попал квантиль */
+    long percentile(double percentile) {
+        long n = total.sum();
+        if (n == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return Math.min(upperBound(i), max.get());
+        }
+        return max.get();
+    }
+
+    static int index(long v) {
+        if (v < SUB_BUCKETS) return (int) v;
+        int shift = 64 - Long.numberOfLeadingZeros(v) - SUB_BUCKET_BITS;  // >= 1
+        return HALF * shift + (int) (v >>> shift);
+    }
+
+    static long upperBound(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int shift = index / HALF - 1;
+        long sub = index - (long) HALF * shift;
+        return ((sub + 1) << shift) - 1;
+    }
+}
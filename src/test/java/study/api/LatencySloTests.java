@@ -0,0 +1,93 @@
+package study.api;
+
+import io.qameta.allure.Epic;
+import io.qameta.allure.Feature;
+import io.qameta.allure.junit5.AllureJunit5;
+import io.restassured.response.Response;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Проверка задержек по перцентилям вместо одного замера против 3 секунд:
+ * каждый из 20 вызовов {@link AccuWeatherApiTests} выполняется K раз после прогрева,
+ * p50/p95/p99 сравниваются с бюджетом из latency-budgets.properties.
+ * При нарушении в сообщении — всё распределение, а не единичный замер.
+ * В перцентили идут только ответы 200: быстрый 401/403 бесплатного тарифа ничего не говорит
+ * о задержке эндпоинта, а вызов без единого 200 пропускается.
+ * <p>
+ * Тратит 20 * (warmup + K) запросов квоты, поэтому включается явно:
+ * mvn test -Dtest=LatencySloTests -Dslo=true [-Dslo.samples=30 -Dslo.warmup=3]
+ */
+@Epic("AccuWeather API")
+@Feature("Latency SLO")
+@ExtendWith({ AllureJunit5.class })
+@EnabledIfSystemProperty(named = "slo", matches = "true", disabledReason = "spends API quota; run with -Dslo=true")
+public class LatencySloTests {
+
+    static final int WARMUP = Integer.getInteger("slo.warmup", 3);
+    static final int SAMPLES = Integer.getInteger("slo.samples", 30);
+
+    static String locationKey;
+    static String language;
+    static AccuWeatherClient client;
+
+    @BeforeAll
+    static void setup() throws IOException {
+        LiveConfig config = LiveConfig.load();
+        locationKey = config.locationKey;
+        language = config.language;
+        // без фильтров и без QuotaGovernor: меряем сеть и API, а не логирование и ожидание токенов
+        client = new AccuWeatherClient(config.baseUrl, config.apiKey);
+    }
+
+    @TestFactory
+    Stream<DynamicTest> latencyWithinBudget() {
+        return Arrays.stream(ApiCall.values())
+                .map(call -> DynamicTest.dynamicTest(call.name(), () -> check(call)));
+    }
+
+    private void check(ApiCall call) {
+        for (int i = 0; i < WARMUP; i++) {
+            invoke(call);
+        }
+        LatencyHistogram h = new LatencyHistogram();
+        Map<Integer, Integer> statuses = new TreeMap<>();
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            Response response = invoke(call);
+            long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+            if (response.statusCode() == 200) h.record(micros);
+            statuses.merge(response.statusCode(), 1, Integer::sum);
+        }
+        Assumptions.assumeTrue(h.count() > 0, () -> call + " returned no 200 responses: " + statuses);
+
+        LatencyBudget budget = LatencyBudget.of(call);
+        String violations = budget.violations(h);
+        if (violations != null) {
+            Assertions.fail(call + " exceeds " + budget + ": " + violations + "\n" + distribution(h, statuses));
+        }
+    }
+
+    private static Response invoke(ApiCall call) {
+        return call.call(client, locationKey, language);
+    }
+
+    static String distribution(LatencyHistogram h, Map<Integer, Integer> statuses) {
+        return String.format("n=%d mean=%.1f p50=%.1f p90=%.1f p95=%.1f p99=%.1f max=%.1f ms, statuses %s",
+                h.count(), h.mean() / 1000.0,
+                h.percentile(50) / 1000.0, h.percentile(90) / 1000.0, h.percentile(95) / 1000.0,
+                h.percentile(99) / 1000.0, h.max() / 1000.0, statuses);
+    }
+}
@@ -0,0 +1,46 @@
+package study.api;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Настройки прогона против живого API: config.properties из classpath,
+ * BASE_URL, API_KEY и API_KEYS переопределяются переменными окружения (удобно в CI).
+ */
+final class LiveConfig {
+
+    static final String DEFAULT_BASE_URL = "https://dataservice.accuweather.com";
+
+    private final Properties props;
+    final String baseUrl;
+    final String apiKey;
+    final String locationKey;
+    final String language;
+
+    private LiveConfig(Properties props) {
+        this.props = props;
+        this.baseUrl = env("BASE_URL", DEFAULT_BASE_URL);
+        this.apiKey = env("API_KEY", "");
+        this.locationKey = property("DEFAULT_LOCATION_KEY", "294021"); // пример: Минск
+        this.language = property("LANGUAGE", "en-us");
+    }
+
+    /** Читает config.properties; файла может не быть — тогда только окружение и значения по умолчанию. */
+    static LiveConfig load() throws IOException {
+        Properties props = new Properties();
+        try (InputStream is = LiveConfig.class.getClassLoader().getResourceAsStream("config.properties")) {
+            if (is != null) props.load(is);
+        }
+        return new LiveConfig(props);
+    }
+
+    /** Переменная окружения, иначе свойство из config.properties, иначе значение по умолчанию. */
+    String env(String name, String defaultValue) {
+        return System.getenv().getOrDefault(name, props.getProperty(name, defaultValue));
+    }
+
+    String property(String name, String defaultValue) {
+        return props.getProperty(name, defaultValue);
+    }
+}
@@ -0,0 +1,177 @@
+package study.api;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import io.restassured.response.Response;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Генератор нагрузки: прогоняет 20 вызовов {@link ApiCall} по кругу против встроенной заглушки
+ * с заданной частотой (open loop) и считает гистограммы задержек, throughput и статусы по эндпоинтам.
+ * <p>
+ * Задержка меряется от запланированного момента старта запроса, а не от фактического:
+ * если клиент или сервер не успевают, очередь попадает в хвост распределения
+ * (поправка на coordinated omission, как в HdrHistogram/wrk2).
+ * <p>
+ * Исполнители — виртуальные потоки, -Dload.threads задаёт число одновременных запросов;
+ * пул соединений клиента расширяется до того же числа. Клиент не повторяет запрос после обрыва
+ * соединения, так что обрывы и обрезанные тела считаются ошибками ({@link #IO_ERROR}), а не задержкой.
+ * <p>
+ * Заглушка по умолчанию — {@link StubServer}, чтобы мерить клиент, а не WireMock; WireMock берётся
+ * при -Dload.server=wiremock, а также для профилей деградации и воспроизведения записей.
+ * <p>
+ * Запуск: mvn -Pload test [-Dload.rps=500 -Dload.threads=32 -Dload.seconds=30 -Dmock.faults=slow-tail]
+ */
+public final class LoadDriver {
+
+    static final String LOCATION_KEY = "294021";
+    static final String LANGUAGE = "en-us";
+    static final int IO_ERROR = -1;  // исключение вместо HTTP-ответа
+
+    final int rps;
+    final int threads;
+    final int seconds;
+
+    private final Map<ApiCall, LatencyHistogram> latency = new EnumMap<>(ApiCall.class);
+    private final Map<ApiCall, Map<Integer, LongAdder>> statuses = new EnumMap<>(ApiCall.class);
+
+    LoadDriver(int rps, int threads, int seconds) {
+        if (rps <= 0 || threads <= 0 || seconds <= 0) {
+            throw new IllegalArgumentException("rps, threads and seconds must be positive");
+        }
+        this.rps = rps;
+        this.threads = threads;
+        this.seconds = seconds;
+        for (ApiCall call : ApiCall.values()) {
+            latency.put(call, new LatencyHistogram());
+            statuses.put(call, new ConcurrentHashMap<>());
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        LoadDriver driver = new LoadDriver(
+                Integer.getInteger("load.rps", 500),
+                Integer.getInteger("load.threads", 32),
+                Integer.getInteger("load.seconds", 30));
+
+        boolean wiremock = "wiremock".equals(System.getProperty("load.server", "stub"))
+                || FaultProfile.current() != FaultProfile.NONE
+                || !System.getProperty("store.replay", "").isEmpty();
+        if (!wiremock) {
+            try (StubServer stub = new StubServer()) {
+                long elapsed = driver.run(AccuWeatherClient.withoutRetries(stub.baseUrl(), "TEST"));
+                driver.report("stub", elapsed);
+            }
+            return;
+        }
+
+        // журнал запросов WireMock растёт без ограничений — под нагрузкой он не нужен
+        WireMockServer wm = new WireMockServer(MockServers.serverOptions()
+                .containerThreads(Math.max(driver.threads * 2, 16))
+                .disableRequestJournal());
+        wm.start();
+        try {
+            MockServers.registerStubs(wm);
+            long elapsed = driver.run(AccuWeatherClient.withoutRetries("http://localhost:" + wm.port(), "TEST"));
+            driver.report("wiremock", elapsed);
+        } finally {
+            wm.stop();
+        }
+    }
+
+    /** @return фактическая длительность прогона в наносекундах */
+    long run(AccuWeatherClient client) throws InterruptedException {
+        ApiCall[] calls = ApiCall.values();
+        long total = (long) rps * seconds;
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rps;
+        AtomicLong tickets = new AtomicLong();
+
+        // каждый поток держит одно соединение: без запаса пула нагрузка мерила бы ожидание в пуле
+        AccuWeatherClient.ensurePoolSize(threads);
+        ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor();
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            pool.execute(() -> {
+                long ticket;
+                while ((ticket = tickets.getAndIncrement()) < total) {
+                    long scheduled = start + ticket * intervalNanos;
+                    long wait;
+                    while ((wait = scheduled - System.nanoTime()) > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                    execute(calls[(int) (ticket % calls.length)], client, scheduled);
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(seconds + 60L, TimeUnit.SECONDS);
+        return System.nanoTime() - start;
+    }
+
+    private void execute(ApiCall call, AccuWeatherClient client, long scheduled) {
+        int status;
+        try {
+            Response response = call.call(client, LOCATION_KEY, LANGUAGE);
+            status = response.statusCode();
+        } catch (Exception e) {
+            // Rest Assured пробрасывает SocketException и прочие IOException, не объявляя их
+            status = IO_ERROR;
+        }
+        latency.get(call).record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - scheduled));
+        statuses.get(call).computeIfAbsent(status, s -> new LongAdder()).increment();
+    }
+
+    /** Сколько вызовов всех эндпоинтов завершилось этим статусом ({@link #IO_ERROR} — исключением). */
+    long count(int status) {
+        long n = 0;
+        for (Map<Integer, LongAdder> codes : statuses.values()) {
+            LongAdder adder = codes.get(status);
+            if (adder != null) n += adder.sum();
+        }
+        return n;
+    }
+
+    void report(String server, long elapsedNanos) {
+        double elapsedSec = elapsedNanos / 1e9;
+        LatencyHistogram all = new LatencyHistogram();
+        Map<Integer, Long> allStatuses = new TreeMap<>();
+
+        System.out.printf("%nLoad: target %d rps, %d threads, %d s, server %s, faults %s; elapsed %.1f s%n",
+                rps, threads, seconds, server, FaultProfile.current(), elapsedSec);
+        System.out.printf("%-28s %8s %8s %8s %8s %8s %8s %8s  %s%n",
+                "endpoint", "count", "rps", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "statuses");
+        for (ApiCall call : ApiCall.values()) {
+            LatencyHistogram h = latency.get(call);
+            Map<Integer, Long> codes = new TreeMap<>();
+            statuses.get(call).forEach((code, n) -> codes.put(code, n.sum()));
+            codes.forEach((code, n) -> allStatuses.merge(code, n, Long::sum));
+            all.add(h);
+            printRow(call.name(), h, elapsedSec, codes);
+        }
+        printRow("TOTAL", all, elapsedSec, allStatuses);
+
+        long errors = allStatuses.entrySet().stream()
+                .filter(e -> e.getKey() != 200 && e.getKey() != 204)
+                .mapToLong(Map.Entry::getValue)
+                .sum();
+        System.out.printf("error rate: %.3f%% (%d of %d; 401/403 и прочие не-2xx, %d = IO error)%n",
+                all.count() == 0 ? 0 : 100.0 * errors / all.count(), errors, all.count(), IO_ERROR);
+    }
+
+    private static void printRow(String name, LatencyHistogram h, double elapsedSec, Map<Integer, Long> codes) {
+        System.out.printf("%-28s %8d %8.1f %8.2f %8.2f %8.2f %8.2f %8.2f  %s%n",
+                name, h.count(), h.count() / elapsedSec,
+                h.percentile(50) / 1000.0, h.percentile(90) / 1000.0,
+                h.percentile(99) / 1000.0, h.percentile(99.9) / 1000.0,
+                h.max() / 1000.0, codes);
+    }
+}
@@ -0,0 +1,22 @@
+package study.api;
+
+import org.junit.jupiter.api.*;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Генератор нагрузки считает сбои транспорта ошибками, а не теряет их вместе с рабочими потоками.
+ */
+public class LoadDriverMockTests {
+
+    @Test @DisplayName("Refused connections are counted as IO errors")
+    void refusedConnectionIsIoError() throws InterruptedException {
+        LoadDriver driver = new LoadDriver(20, 2, 1);
+
+        driver.run(AccuWeatherClient.withoutRetries(MockServers.unreachableUrl(), "TEST"));
+
+        assertThat(driver.count(LoadDriver.IO_ERROR), is(20L));
+        assertThat(driver.count(200), is(0L));
+    }
+}
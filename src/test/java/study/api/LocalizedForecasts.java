@@ -0,0 +1,139 @@
+package study.api;
+
+import io.restassured.response.Response;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Дневные прогнозы с числами, хранящимися один раз на локацию, и текстами по языкам поверх них.
+ * <p>
+ * Числа (даты, температуры) от языка не зависят: прогноз локации скачивается один раз
+ * на {@link #BASE_LANGUAGE} и хранится в {@link ForecastColumns}. Для другого языка хранится
+ * только словарь «базовая фраза → локализованная» (Headline.Text, Day/Night.IconPhrase).
+ * Словарь пополняется лениво: запрос на нужном языке уходит, только если в словаре нет
+ * какой-то фразы прогноза. Набор IconPhrase конечен, поэтому со временем локализация
+ * обходится вовсе без запросов, а словарь на язык — несколько сотен строк на все локации.
+ */
+final class LocalizedForecasts {
+
+    static final String BASE_LANGUAGE = "en-us";
+
+    /** Прогноз на одном языке: числа общие для всех языков, тексты — из словаря языка. */
+    record Localized(String language, ForecastColumns data, String headline,
+                     List<String> dayPhrases, List<String> nightPhrases) {
+    }
+
+    private final AccuWeatherClient client;
+    private final Map<String, ForecastColumns> base = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, String>> overlays = new ConcurrentHashMap<>();
+
+    /** Запросы на базовом языке (числа) и на остальных (только ради текстов). */
+    final LongAdder baseFetches = new LongAdder();
+    final LongAdder overlayFetches = new LongAdder();
+
+    LocalizedForecasts(AccuWeatherClient client) {
+        this.client = client;
+    }
+
+    /** Числовой прогноз на {@code days} дней; скачивается при первом обращении. */
+    ForecastColumns forecast(String locationKey, int days) {
+        String key = locationKey + "/" + days;
+        ForecastColumns known = base.get(key);
+        if (known != null) return known;
+        // запрос не под блокировкой карты; при гонке остаётся первый сохранённый
+        baseFetches.increment();
+        ForecastColumns fetched = WeatherJson.dailyColumns(fetch(locationKey, days, BASE_LANGUAGE));
+        ForecastColumns raced = base.putIfAbsent(key, fetched);
+        return raced != null ? raced : fetched;
+    }
+
+    /** Заново скачивает числа локации, например по истечении TTL; словари языков сохраняются. */
+    ForecastColumns refresh(String locationKey, int days) {
+        base.remove(locationKey + "/" + days);
+        return forecast(locationKey, days);
+    }
+
+    /** @param language например "ru-ru"; сравнивается без учёта регистра */
+    Localized forecast(String locationKey, int days, String language) {
+        ForecastColumns data = forecast(locationKey, days);
+        String lang = language.toLowerCase(Locale.ROOT);
+        if (lang.equals(BASE_LANGUAGE)) {
+            return localize(lang, data, null);
+        }
+        Map<String, String> overlay = overlays.computeIfAbsent(lang, l -> new ConcurrentHashMap<>());
+        if (!covers(overlay, data)) {
+            overlayFetches.increment();
+            learn(overlay, data, WeatherJson.dailyColumns(fetch(locationKey, days, lang)));
+        }
+        return localize(lang, data, overlay);
+    }
+
+    /** Сколько фраз выучено для языка. */
+    int overlaySize(String language) {
+        Map<String, String> overlay = overlays.get(language.toLowerCase(Locale.ROOT));
+        return overlay == null ? 0 : overlay.size();
+    }
+
+    private byte[] fetch(String locationKey, int days, String language) {
+        Response response = client.dailyForecast(locationKey, days, language);
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("HTTP " + response.statusCode()
+                    + " for daily forecast " + locationKey + " " + language);
+        }
+        return response.asByteArray();
+    }
+
+    private static boolean covers(Map<String, String> overlay, ForecastColumns data) {
+        if (data.headline != null && !overlay.containsKey(data.headline)) return false;
+        for (int i = 0; i < data.size(); i++) {
+            if (data.phrase(i) != null && !overlay.containsKey(data.phrase(i))) return false;
+            if (data.nightPhrase(i) != null && !overlay.containsKey(data.nightPhrase(i))) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Сопоставляет фразы базового и локализованного прогноза по позиции. Если прогноз успел
+     * обновиться между запросами, сопоставляются только дни с совпадающей датой, а заголовок —
+     * только когда совпали все даты.
+     */
+    private static void learn(Map<String, String> overlay, ForecastColumns base, ForecastColumns localized) {
+        boolean sameDates = base.size() == localized.size();
+        for (int i = 0; i < Math.min(base.size(), localized.size()); i++) {
+            if (base.epochSeconds(i) != localized.epochSeconds(i)) {
+                sameDates = false;
+                continue;
+            }
+            put(overlay, base.phrase(i), localized.phrase(i));
+            put(overlay, base.nightPhrase(i), localized.nightPhrase(i));
+        }
+        if (sameDates) put(overlay, base.headline, localized.headline);
+    }
+
+    private static void put(Map<String, String> overlay, String baseText, String localizedText) {
+        if (baseText != null && localizedText != null) overlay.put(baseText, localizedText);
+    }
+
+    private static Localized localize(String language, ForecastColumns data, Map<String, String> overlay) {
+        List<String> day = new ArrayList<>(data.size());
+        List<String> night = new ArrayList<>(data.size());
+        for (int i = 0; i < data.size(); i++) {
+            day.add(text(overlay, data.phrase(i)));
+            night.add(text(overlay, data.nightPhrase(i)));
+        }
+        return new Localized(language, data, text(overlay, data.headline),
+                Collections.unmodifiableList(day), Collections.unmodifiableList(night));
+    }
+
+    // фразы нет в словаре (прогноз обновился, а дата не совпала) — остаётся базовая
+    private static String text(Map<String, String> overlay, String baseText) {
+        if (baseText == null || overlay == null) return baseText;
+        return overlay.getOrDefault(baseText, baseText);
+    }
+}
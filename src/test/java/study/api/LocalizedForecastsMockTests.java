@@ -0,0 +1,69 @@
+package study.api;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import org.junit.jupiter.api.*;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Прогноз с общими числами и ленивыми языковыми словарями против WireMock (en-us и ru-ru фикстуры).
+ */
+public class LocalizedForecastsMockTests {
+
+    WireMockServer wm;
+    LocalizedForecasts forecasts;
+
+    @BeforeEach
+    void start() {
+        wm = new WireMockServer(options().dynamicPort());
+        wm.start();
+        MockStub.registerAll(wm);
+        forecasts = new LocalizedForecasts(new AccuWeatherClient("http://localhost:" + wm.port(), "TEST"));
+    }
+
+    @AfterEach
+    void stop() {
+        wm.stop();
+    }
+
+    int requests(String language) {
+        return wm.findAll(getRequestedFor(urlPathMatching("/forecasts/v1/daily/1day/\\d+"))
+                .withQueryParam("language", equalTo(language))).size();
+    }
+
+    @Test @DisplayName("Localized text overlays the shared numeric forecast")
+    void overlayOnSharedNumbers() {
+        LocalizedForecasts.Localized ru = forecasts.forecast("294021", 1, "ru-RU");
+        LocalizedForecasts.Localized en = forecasts.forecast("294021", 1, "en-us");
+
+        assertThat(ru.headline(), is("Облачно с прояснениями"));
+        assertThat(ru.dayPhrases(), contains("Облачно"));
+        assertThat(ru.nightPhrases(), contains("Снег"));
+        assertThat(en.headline(), is("Clouds and sun"));
+        assertThat(ru.data(), sameInstance(en.data()));
+        assertThat(ru.data().minimum(0), is(-3f));
+    }
+
+    @Test @DisplayName("Each locale is fetched once, and learned phrases serve other locations")
+    void overlaysAreFetchedLazilyOnce() {
+        forecasts.forecast("294021", 1, "ru-ru");
+        forecasts.forecast("294021", 1, "ru-ru");
+        forecasts.forecast("328328", 1, "ru-ru");   // те же фразы — словарь уже знает
+
+        assertThat(requests("en-us"), is(2));
+        assertThat(requests("ru-ru"), is(1));
+        assertThat(forecasts.overlayFetches.sum(), is(1L));
+        assertThat(forecasts.overlaySize("ru-ru"), is(3));
+    }
+
+    @Test @DisplayName("Base language never fetches an overlay")
+    void baseLanguageIsLocal() {
+        forecasts.forecast("294021", 1, LocalizedForecasts.BASE_LANGUAGE);
+
+        assertThat(forecasts.baseFetches.sum(), is(1L));
+        assertThat(forecasts.overlayFetches.sum(), is(0L));
+    }
+}
@@ -0,0 +1,20 @@
+package study.api;
+
+/**
+ * Локация из /locations/v1/... (поиск, автодополнение, почтовые индексы, геопозиция, topcities).
+ *
+ * @param postalCode null, если ответ не из поиска по индексу
+ * @param latitude   NaN, если в ответе нет GeoPosition (автодополнение)
+ */
+record Location(String key,
+                String localizedName,
+                String englishName,
+                String countryId,
+                String postalCode,
+                double latitude,
+                double longitude) {
+
+    boolean hasGeoPosition() {
+        return !Double.isNaN(latitude) && !Double.isNaN(longitude);
+    }
+}
@@ -0,0 +1,300 @@
+package study.api;
+
+import io.restassured.response.Response;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Локальный индекс локаций, наполняемый ответами /locations/v1/... и topcities.
+ * Повторный поиск города, автодополнение, почтовый индекс и ближайший город по координатам
+ * отвечаются из памяти; в API идёт только запрос, который индекс ещё не видел.
+ * <p>
+ * Повтор запроса возвращает ровно тот список ключей, что вернул API, и в том же порядке
+ * (записи локаций при этом — самые полные из известных индексу).
+ * <p>
+ * Структуры: хэш по ключу, имени и почтовому индексу; префиксное дерево по именам
+ * (локализованному и английскому, без учёта регистра); сетка 1°×1° для поиска ближайшего города.
+ * Имена и почтовые индексы отвечают, пока API недоступен: ответ с ошибкой не запоминается,
+ * а вместо него отдаётся то, что уже есть в индексе.
+ */
+final class LocationIndex {
+
+    static final int AUTOCOMPLETE_LIMIT = 10;
+    /** Город в пределах этого радиуса считается ответом на геопоиск без обращения к API. */
+    static final double GEO_MATCH_KM = 10;
+    static final double EARTH_RADIUS_KM = 6371;
+
+    private final AccuWeatherClient client;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Location> byKey = new HashMap<>();
+    private final Map<String, List<Location>> byName = new HashMap<>();
+    private final Map<String, List<Location>> byPostalCode = new HashMap<>();
+    private final TrieNode names = new TrieNode();
+    private final Map<Long, List<Location>> grid = new HashMap<>();
+
+    // Нормализованный запрос -> ключи из ответа API в его порядке: повтор обслуживается локально
+    private final Map<String, List<String>> searched = new HashMap<>();
+    private final Map<String, List<String>> autocompleted = new HashMap<>();
+    private final Map<String, List<String>> postalSearched = new HashMap<>();
+
+    private static final class TrieNode {
+        // по алфавиту: без ответа API префиксы перечисляются в предсказуемом порядке
+        final Map<Character, TrieNode> children = new TreeMap<>();
+        final List<Location> locations = new ArrayList<>(1);
+    }
+
+    LocationIndex(AccuWeatherClient client) {
+        this.client = client;
+    }
+
+    // ------- поиск с обращением к API при промахе --------
+
+    /** Аналог /locations/v1/cities/search?q=... по точному имени. */
+    List<Location> citiesSearch(String query) {
+        String q = normalize(query);
+        return resolve(searched, q, () -> byName.getOrDefault(q, List.of()), () -> client.citiesSearch(query));
+    }
+
+    /** Аналог /locations/v1/cities/autocomplete?q=...: первые {@link #AUTOCOMPLETE_LIMIT} по префиксу. */
+    List<Location> autocomplete(String prefix) {
+        String q = normalize(prefix);
+        return resolve(autocompleted, q, () -> byPrefix(q), () -> client.citiesAutocomplete(prefix));
+    }
+
+    List<Location> postalCodesSearch(String postalCode) {
+        String q = postalCode.trim();
+        return resolve(postalSearched, q, () -> byPostalCode.getOrDefault(q, List.of()),
+                () -> client.postalCodesSearch(postalCode));
+    }
+
+    /** Ближайший известный город в пределах {@link #GEO_MATCH_KM}, иначе /geoposition/search. */
+    Location geopositionSearch(double latitude, double longitude) {
+        Location local = nearest(latitude, longitude, GEO_MATCH_KM);
+        if (local != null) return local;
+        List<Location> remote = fetch(client.geopositionSearch(latitude + "," + longitude));
+        return remote.isEmpty() ? null : remote.get(0);
+    }
+
+    /** Наполняет индекс популярными городами одним запросом. */
+    void warmUp(int topCities) {
+        fetch(client.topCities(topCities));
+    }
+
+    /**
+     * @param local ответ индекса, пока API отвечает ошибкой; вызывается под read lock
+     */
+    private List<Location> resolve(Map<String, List<String>> seen, String query,
+                                   Supplier<List<Location>> local, Supplier<Response> remote) {
+        lock.readLock().lock();
+        try {
+            List<String> keys = seen.get(query);
+            if (keys != null) return byKeys(keys);
+        } finally {
+            lock.readLock().unlock();
+        }
+        Response response = remote.get();
+        // ошибка (401/429/503...) не запоминается — следующий такой же запрос снова идёт в API
+        if (response.statusCode() != 200) {
+            lock.readLock().lock();
+            try {
+                return local.get();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+        List<Location> result = fetch(response);
+        List<String> keys = new ArrayList<>(result.size());
+        for (Location location : result) {
+            if (location.key() != null) keys.add(location.key());
+        }
+        lock.writeLock().lock();
+        try {
+            seen.put(query, List.copyOf(keys));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return result;
+    }
+
+    private List<Location> byKeys(List<String> keys) {
+        List<Location> result = new ArrayList<>(keys.size());
+        for (String key : keys) result.add(byKey.get(key));
+        return result;
+    }
+
+    private List<Location> fetch(Response response) {
+        if (response.statusCode() != 200) return List.of();
+        List<Location> locations = WeatherJson.locations(response.asByteArray());
+        addAll(locations);
+        return locations;
+    }
+
+    // ------- индекс --------
+
+    void addAll(Collection<Location> locations) {
+        lock.writeLock().lock();
+        try {
+            for (Location location : locations) add(location);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Ответы разных эндпоинтов дополняют друг друга: geoposition знает координаты,
+    // postalcodes — индекс, autocomplete — только имя; сохраняется объединение
+    private void add(Location incoming) {
+        if (incoming.key() == null) return;
+        Location known = byKey.get(incoming.key());
+        Location location = known == null ? incoming : merge(known, incoming);
+        byKey.put(location.key(), location);
+        if (known != null) unindex(known);
+
+        for (String name : names(location)) {
+            byName.computeIfAbsent(name, n -> new ArrayList<>(1)).add(location);
+            TrieNode node = names;
+            for (int i = 0; i < name.length(); i++) {
+                node = node.children.computeIfAbsent(name.charAt(i), c -> new TrieNode());
+            }
+            node.locations.add(location);
+        }
+        if (location.postalCode() != null) {
+            byPostalCode.computeIfAbsent(location.postalCode(), c -> new ArrayList<>(1)).add(location);
+        }
+        if (location.hasGeoPosition()) {
+            grid.computeIfAbsent(cell(location.latitude(), location.longitude()), c -> new ArrayList<>(1)).add(location);
+        }
+    }
+
+    private void unindex(Location location) {
+        for (String name : names(location)) {
+            List<Location> list = byName.get(name);
+            if (list != null) list.remove(location);
+            TrieNode node = names;
+            for (int i = 0; i < name.length() && node != null; i++) {
+                node = node.children.get(name.charAt(i));
+            }
+            if (node != null) node.locations.remove(location);
+        }
+        if (location.postalCode() != null) {
+            List<Location> list = byPostalCode.get(location.postalCode());
+            if (list != null) list.remove(location);
+        }
+        if (location.hasGeoPosition()) {
+            List<Location> list = grid.get(cell(location.latitude(), location.longitude()));
+            if (list != null) list.remove(location);
+        }
+    }
+
+    private static Location merge(Location a, Location b) {
+        return new Location(a.key(),
+                b.localizedName() != null ? b.localizedName() : a.localizedName(),
+                b.englishName() != null ? b.englishName() : a.englishName(),
+                b.countryId() != null ? b.countryId() : a.countryId(),
+                b.postalCode() != null ? b.postalCode() : a.postalCode(),
+                b.hasGeoPosition() ? b.latitude() : a.latitude(),
+                b.hasGeoPosition() ? b.longitude() : a.longitude());
+    }
+
+    private static Set<String> names(Location location) {
+        Set<String> result = new HashSet<>(2);
+        if (location.localizedName() != null) result.add(normalize(location.localizedName()));
+        if (location.englishName() != null) result.add(normalize(location.englishName()));
+        return result;
+    }
+
+    Location byKey(String key) {
+        lock.readLock().lock();
+        try {
+            return byKey.get(key);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Вызывается под read lock из {@link #resolve}; порядок — обход дерева в глубину по алфавиту. */
+    private List<Location> byPrefix(String prefix) {
+        TrieNode node = names;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.children.get(prefix.charAt(i));
+        }
+        if (node == null) return List.of();
+        Map<String, Location> result = new LinkedHashMap<>();
+        collect(node, result);
+        return List.copyOf(result.values());
+    }
+
+    private static void collect(TrieNode node, Map<String, Location> into) {
+        for (Location location : node.locations) {
+            if (into.size() >= AUTOCOMPLETE_LIMIT) return;
+            into.putIfAbsent(location.key(), location);
+        }
+        for (TrieNode child : node.children.values()) {
+            if (into.size() >= AUTOCOMPLETE_LIMIT) return;
+            collect(child, into);
+        }
+    }
+
+    /** Ближайший город из индекса не дальше maxKm или null; перебираются только соседние клетки сетки. */
+    Location nearest(double latitude, double longitude, double maxKm) {
+        lock.readLock().lock();
+        try {
+            int latCell = (int) Math.floor(latitude);
+            int lonCell = (int) Math.floor(longitude);
+            // градус широты ~111 км; по долготе клетки уже, поэтому радиус по долготе шире
+            int latRadius = (int) Math.ceil(maxKm / 111.0);
+            int lonRadius = (int) Math.ceil(maxKm / (111.0 * Math.max(Math.cos(Math.toRadians(latitude)), 0.01)));
+            Location best = null;
+            double bestKm = maxKm;
+            for (int dLat = -latRadius; dLat <= latRadius; dLat++) {
+                for (int dLon = -lonRadius; dLon <= lonRadius; dLon++) {
+                    List<Location> cell = grid.get(cell(latCell + dLat, Math.floorMod(lonCell + dLon + 180, 360) - 180));
+                    if (cell == null) continue;
+                    for (Location location : cell) {
+                        double km = distanceKm(latitude, longitude, location.latitude(), location.longitude());
+                        if (km <= bestKm) {
+                            best = location;
+                            bestKm = km;
+                        }
+                    }
+                }
+            }
+            return best;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static long cell(double latitude, double longitude) {
+        return cell((int) Math.floor(latitude), (int) Math.floor(longitude));
+    }
+
+    private static long cell(int latCell, int lonCell) {
+        return ((long) latCell << 32) | (lonCell & 0xFFFFFFFFL);
+    }
+
+    static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.sqrt(a));
+    }
+
+    private static String normalize(String query) {
+        return query.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,125 @@
+package study.api;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
+import org.junit.jupiter.api.*;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Локальный индекс локаций против WireMock: повторы без запросов, префиксы, почтовые индексы, геопоиск.
+ */
+public class LocationIndexMockTests {
+
+    WireMockServer wm;
+    LocationIndex index;
+
+    @BeforeEach
+    void start() {
+        wm = new WireMockServer(options().dynamicPort());
+        wm.start();
+        MockStub.registerAll(wm);
+        index = new LocationIndex(new AccuWeatherClient("http://localhost:" + wm.port(), "TEST"));
+    }
+
+    @AfterEach
+    void stop() {
+        wm.stop();
+    }
+
+    @Test @DisplayName("Repeated city search is answered from the index")
+    void repeatedSearchIsLocal() {
+        assertThat(index.citiesSearch("Minsk").get(0).key(), is("294021"));
+        assertThat(index.citiesSearch(" minsk ").get(0).key(), is("294021"));
+
+        wm.verify(1, getRequestedFor(urlPathEqualTo("/locations/v1/cities/search")));
+    }
+
+    @Test @DisplayName("Repeated search returns the API result even when names differ from the query")
+    void repeatedSearchKeepsApiResult() {
+        wm.stubFor(get(urlPathEqualTo("/locations/v1/cities/search")).withQueryParam("q", equalTo("Minsk City"))
+                .atPriority(1)
+                .willReturn(aResponse().withStatus(200).withHeader("Content-Type", "application/json")
+                        .withBody("[{\"Key\":\"294021\",\"LocalizedName\":\"Minsk\"}]")));
+
+        assertThat(index.citiesSearch("Minsk City").get(0).key(), is("294021"));
+        assertThat(index.citiesSearch("minsk city").get(0).key(), is("294021"));
+
+        wm.verify(1, getRequestedFor(urlPathEqualTo("/locations/v1/cities/search")));
+    }
+
+    @Test @DisplayName("Repeated autocomplete keeps the API ranking")
+    void autocompleteKeepsApiOrder() {
+        wm.stubFor(get(urlPathEqualTo("/locations/v1/cities/autocomplete")).withQueryParam("q", equalTo("Ber"))
+                .atPriority(1)
+                .willReturn(aResponse().withStatus(200).withHeader("Content-Type", "application/json")
+                        .withBody("[{\"Key\":\"1\",\"LocalizedName\":\"Bern\"},"
+                                + "{\"Key\":\"2\",\"LocalizedName\":\"Berlin\"},"
+                                + "{\"Key\":\"3\",\"LocalizedName\":\"Bergen\"}]")));
+
+        index.autocomplete("Ber");
+
+        assertThat(index.autocomplete("Ber").stream().map(Location::key).toList(), contains("1", "2", "3"));
+        wm.verify(1, getRequestedFor(urlPathEqualTo("/locations/v1/cities/autocomplete")));
+    }
+
+    @Test @DisplayName("Failed search is not remembered and is retried")
+    void failedSearchIsRetried() {
+        wm.stubFor(get(urlPathEqualTo("/locations/v1/cities/search")).atPriority(1)
+                .inScenario("outage").whenScenarioStateIs(Scenario.STARTED)
+                .willReturn(aResponse().withStatus(503))
+                .willSetStateTo("recovered"));
+
+        assertThat(index.citiesSearch("Minsk"), empty());
+        assertThat(index.citiesSearch("Minsk").get(0).key(), is("294021"));
+        assertThat(index.citiesSearch("Minsk").get(0).key(), is("294021"));
+
+        wm.verify(2, getRequestedFor(urlPathEqualTo("/locations/v1/cities/search")));
+    }
+
+    @Test @DisplayName("Repeated autocomplete prefix is answered from the index")
+    void repeatedAutocompleteIsLocal() {
+        index.autocomplete("Lon");
+
+        assertThat(index.autocomplete("Lon"), hasSize(2));
+        wm.verify(1, getRequestedFor(urlPathEqualTo("/locations/v1/cities/autocomplete")));
+    }
+
+    @Test @DisplayName("While the API fails, the trie answers from known names")
+    void autocompleteFallsBackToTrie() {
+        index.warmUp(50);
+        wm.stubFor(get(urlPathEqualTo("/locations/v1/cities/autocomplete")).atPriority(1)
+                .willReturn(aResponse().withStatus(503)));
+
+        assertThat(index.autocomplete("lon").stream().map(Location::localizedName).toList(), hasItem("London"));
+        assertThat(index.autocomplete("lon"), not(empty()));
+        wm.verify(2, getRequestedFor(urlPathEqualTo("/locations/v1/cities/autocomplete")));
+    }
+
+    @Test @DisplayName("Postal code lookup is cached by code")
+    void postalCodeIsLocal() {
+        index.postalCodesSearch("10001");
+
+        assertThat(index.postalCodesSearch("10001").get(0).localizedName(), is("New York"));
+        wm.verify(1, getRequestedFor(urlPathEqualTo("/locations/v1/postalcodes/search")));
+    }
+
+    @Test @DisplayName("Nearby coordinates resolve to a known city without a request")
+    void geopositionUsesGrid() {
+        index.citiesSearch("Minsk");   // GeoPosition 53.9, 27.5667
+
+        assertThat(index.geopositionSearch(53.93, 27.60).key(), is("294021"));
+        wm.verify(0, getRequestedFor(urlPathEqualTo("/locations/v1/cities/geoposition/search")));
+        assertThat(index.nearest(55.75, 37.61, LocationIndex.GEO_MATCH_KM), nullValue());
+    }
+
+    @Test @DisplayName("Top cities warm up name lookups")
+    void warmUpFillsIndex() {
+        index.warmUp(50);
+
+        assertThat(index.byKey("328328").localizedName(), is("London"));
+    }
+}
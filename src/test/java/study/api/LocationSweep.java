@@ -0,0 +1,92 @@
+package study.api;
+
+import io.restassured.response.Response;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Все данные страницы локации одним проходом: 12 вызовов {@link AccuWeatherApiTests}
+ * для одного location key идут одновременно, каждый на своём виртуальном потоке,
+ * поэтому время сборки — максимум, а не сумма задержек.
+ */
+final class LocationSweep {
+
+    static final Set<ApiCall> CALLS = Collections.unmodifiableSet(EnumSet.of(
+            ApiCall.CURRENT_CONDITIONS, ApiCall.CURRENT_CONDITIONS_DETAILS,
+            ApiCall.HISTORICAL_6H, ApiCall.HISTORICAL_24H,
+            ApiCall.FORECAST_1DAY, ApiCall.FORECAST_5DAY,
+            ApiCall.FORECAST_12HOUR, ApiCall.FORECAST_24HOUR, ApiCall.FORECAST_QUARTERDAY,
+            ApiCall.INDICES_1DAY, ApiCall.INDICES_5DAY,
+            ApiCall.ALERTS));
+
+    /**
+     * Снимок локации: ответ или ошибка по каждому вызову из {@link #CALLS}.
+     * Тела уже вычитаны клиентом, разбор — по требованию.
+     */
+    record Snapshot(String locationKey,
+                    Map<ApiCall, Response> responses,
+                    Map<ApiCall, RuntimeException> errors,
+                    long elapsedNanos) {
+
+        boolean complete() {
+            return errors.isEmpty() && responses.values().stream().allMatch(r -> r.statusCode() < 400);
+        }
+
+        /** null, если вызов не удался. */
+        List<CurrentCondition> conditions(ApiCall call) {
+            Response response = responses.get(call);
+            return response == null || response.statusCode() != 200
+                    ? null : WeatherJson.currentConditions(response.asByteArray());
+        }
+
+        /** @param call FORECAST_1DAY или FORECAST_5DAY; null, если вызов не удался */
+        DailyForecast dailyForecast(ApiCall call) {
+            Response response = responses.get(call);
+            return response == null || response.statusCode() != 200
+                    ? null : WeatherJson.dailyForecast(response.asByteArray());
+        }
+    }
+
+    private final AccuWeatherClient client;
+    private final String language;
+
+    /** @param language язык для дневного прогона на 1 день, как LANGUAGE в config.properties */
+    LocationSweep(AccuWeatherClient client, String language) {
+        this.client = client;
+        this.language = language;
+    }
+
+    Snapshot fetch(String locationKey) {
+        long start = System.nanoTime();
+        Map<ApiCall, Future<Response>> futures = new EnumMap<>(ApiCall.class);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (ApiCall call : CALLS) {
+                futures.put(call, executor.submit(() -> call.call(client, locationKey, language)));
+            }
+        } // close() дожидается всех задач
+
+        Map<ApiCall, Response> responses = new EnumMap<>(ApiCall.class);
+        Map<ApiCall, RuntimeException> errors = new EnumMap<>(ApiCall.class);
+        futures.forEach((call, future) -> {
+            try {
+                responses.put(call, future.get());
+            } catch (ExecutionException e) {
+                errors.put(call, e.getCause() instanceof RuntimeException re
+                        ? re : new IllegalStateException(e.getCause()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                errors.put(call, new IllegalStateException("Interrupted", e));
+            }
+        });
+        return new Snapshot(locationKey, responses, errors, System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,5 @@
+package study.api;
+
+/** Значение с единицей измерения AccuWeather: {"Value": 2.3, "Unit": "C"}. */
+record Measure(double value, String unit) {
+}
@@ -0,0 +1,35 @@
+package study.api;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Фикстуры из src/test/resources/mocks_accuweather, загруженные один раз с classpath.
+ * Не зависит от рабочего каталога: работает из IDE, Maven и любого форка surefire.
+ * Возвращаемые массивы общие — их нельзя изменять.
+ */
+final class MockFixtures {
+
+    static final String DIR = "/mocks_accuweather/";
+
+    private static final Map<String, byte[]> CACHE = new ConcurrentHashMap<>();
+
+    private MockFixtures() {
+    }
+
+    static byte[] bytes(String fixture) {
+        return CACHE.computeIfAbsent(fixture, MockFixtures::read);
+    }
+
+    private static byte[] read(String fixture) {
+        try (InputStream is = MockFixtures.class.getResourceAsStream(DIR + fixture)) {
+            if (is == null) throw new IllegalStateException("Fixture not found on classpath: " + DIR + fixture);
+            return is.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot load fixture: " + fixture, e);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package study.api;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import io.restassured.filter.Filter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.any;
+import static com.github.tomakehurst.wiremock.client.WireMock.anyUrl;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+
+/**
+ * WireMock-сервер и клиент на каждый рабочий поток JUnit.
+ * При параллельном запуске (-Pparallel) потоки не делят ни порт, ни спецификацию запроса,
+ * а глобальное состояние RestAssured (baseURI, filters) не используется вовсе.
+ * Один экземпляр на тестовый класс: {@link #stopAll()} останавливает только его серверы.
+ */
+final class MockServers {
+
+    // Записанные ответы (-Dstore.replay) отображаются в память один раз на JVM и общие для всех серверов
+    private static final ResponseStore REPLAY = ResponseStore.replayFromProperty();
+
+    private final Queue<WireMockServer> started = new ConcurrentLinkedQueue<>();
+    private final Supplier<Filter[]> filters;
+    private final ThreadLocal<AccuWeatherClient> clients = ThreadLocal.withInitial(this::startWorker);
+
+    /** @param filters фильтры для клиента каждого потока (создаются заново на поток) */
+    MockServers(Supplier<Filter[]> filters) {
+        this.filters = filters;
+    }
+
+    /** Клиент текущего потока, направленный на его собственный WireMock. */
+    AccuWeatherClient client() {
+        return clients.get();
+    }
+
+    /**
+     * Конфигурация заглушки на прогон: свободный порт, воспроизведение записей из -Dstore.replay
+     * и профиль деградации из -Dmock.faults (задержки действуют и на записи, а ответы,
+     * заменённые профилем на 503, обрыв или обрезанное тело, записью не подменяются).
+     */
+    static WireMockConfiguration serverOptions() {
+        WireMockConfiguration options = options().dynamicPort();
+        if (REPLAY != null) options.extensions(REPLAY.transformer());
+        return FaultProfile.current().applyTo(options);
+    }
+
+    /** Стабы {@link MockStub}; при воспроизведении — ещё и запасной стаб, чтобы записи находились для любого URL. */
+    static void registerStubs(WireMockServer wm) {
+        MockStub.registerAll(wm);
+        if (REPLAY != null) {
+            wm.stubFor(any(anyUrl()).atPriority(Integer.MAX_VALUE).willReturn(aResponse().withStatus(404)));
+        }
+    }
+
+    /** Адрес на только что освобождённом порту: подключение к нему отклоняется (Connection refused). */
+    static String unreachableUrl() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return "http://localhost:" + socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private AccuWeatherClient startWorker() {
+        WireMockServer wm = new WireMockServer(serverOptions());
+        wm.start();
+        started.add(wm);
+        registerStubs(wm);
+        return new AccuWeatherClient("http://localhost:" + wm.port(), "TEST", filters.get());
+    }
+
+    void stopAll() {
+        WireMockServer wm;
+        while ((wm = started.poll()) != null) {
+            wm.stop();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package study.api;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.MappingBuilder;
+import com.github.tomakehurst.wiremock.matching.StringValuePattern;
+import com.github.tomakehurst.wiremock.matching.UrlPathPattern;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+
+/**
+ * Декларативная таблица стабов WireMock для 20 вызовов AccuWeather ({@link ApiCall}); CURRENT_CONDITIONS
+ * и PERF_AND_HEADERS — один и тот же запрос, поэтому и стаб у них один.
+ * Матчеры и тела ответов собираются один раз при загрузке класса,
+ * на каждый сервер регистрируются только готовые маппинги.
+ * <p>
+ * Путь: литерал (urlPathEqualTo) или шаблон с {key} (цифровой location key). В WireMock 2.x нет
+ * urlPathTemplate, поэтому шаблон компилируется в регулярное выражение, где литеральные сегменты
+ * экранированы, а {key} — только цифры.
+ * Query: "name=value" — точное совпадение, "name=*" — параметр должен присутствовать.
+ * apikey требуется всегда. Стаб, перекрывающий другой на том же пути, объявляет это явным
+ * приоритетом; стабы с равным приоритетом не пересекаются, так что порядок констант не важен.
+ */
+enum MockStub {
+
+    CITIES_SEARCH("/locations/v1/cities/search", "cities_search_minsk.json", "q=Minsk"),
+    CITIES_AUTOCOMPLETE("/locations/v1/cities/autocomplete", "cities_autocomplete_lon.json", "q=Lon"),
+    GEOPOSITION_SEARCH("/locations/v1/cities/geoposition/search", "geoposition_search_minsk.json", "q=53.9,27.5667"),
+    POSTAL_CODES_SEARCH("/locations/v1/postalcodes/search", "postalcodes_search_10001.json", "q=10001"),
+    TOP_CITIES("/locations/v1/topcities/50", "topcities_50.json"),
+
+    CURRENT_CONDITIONS("/currentconditions/v1/{key}", "currentconditions_basic.json"),
+    // перекрывает CURRENT_CONDITIONS для details=true
+    CURRENT_CONDITIONS_DETAILS(MockStub.OVERRIDE_PRIORITY, "/currentconditions/v1/{key}",
+            "currentconditions_details_true.json", "details=true"),
+    HISTORICAL_6H("/currentconditions/v1/{key}/historical/6", "currentconditions_historical_6.json"),
+    HISTORICAL_24H("/currentconditions/v1/{key}/historical/24", "currentconditions_historical_24.json"),
+    TOP_CITIES_CONDITIONS("/currentconditions/v1/topcities/50", "currentconditions_topcities_50.json"),
+
+    DAILY_1DAY("/forecasts/v1/daily/1day/{key}", "forecast_daily_1day.json", "language=*", "metric=true"),
+    // перекрывает DAILY_1DAY для language=ru-ru
+    DAILY_1DAY_RU(MockStub.OVERRIDE_PRIORITY, "/forecasts/v1/daily/1day/{key}", "forecast_daily_1day_ru.json",
+            "language=ru-ru", "metric=true"),
+    DAILY_5DAY("/forecasts/v1/daily/5day/{key}", "forecast_daily_5day.json", "metric=true"),
+    HOURLY_12HOUR("/forecasts/v1/hourly/12hour/{key}", "forecast_hourly_12hour.json", "metric=true"),
+    HOURLY_24HOUR("/forecasts/v1/hourly/24hour/{key}", "forecast_hourly_24hour.json", "metric=true"),
+    QUARTERDAY_1DAY("/forecasts/v1/quarterday/1day/{key}", "forecast_quarterday_1day.json", "metric=true"),
+
+    INDICES_1DAY("/indices/v1/daily/1day/{key}", "indices_daily_1day.json"),
+    INDICES_5DAY("/indices/v1/daily/5day/{key}", "indices_daily_5day.json"),
+
+    ALERTS("/alerts/v1/{key}", "alerts_by_location.json");
+
+    static final int DEFAULT_PRIORITY = 5;
+    static final int OVERRIDE_PRIORITY = 1;
+    static final String KEY_REGEX = "\\d+";
+
+    final String path;
+    final String fixture;
+    final int priority;
+    /** Условия на query-параметры, "name=value"; value "*" — параметр есть с любым значением. */
+    final List<String> query;
+    private final MappingBuilder mapping;
+
+    MockStub(String path, String fixture, String... query) {
+        this(DEFAULT_PRIORITY, path, fixture, query);
+    }
+
+    MockStub(int priority, String path, String fixture, String... query) {
+        this.path = path;
+        this.fixture = fixture;
+        this.priority = priority;
+        this.query = List.of(query);
+        this.mapping = compile(priority, path, fixture, query);
+    }
+
+    private static MappingBuilder compile(int priority, String path, String fixture, String... query) {
+        UrlPathPattern url = path.contains("{key}")
+                ? urlPathMatching(Pattern.quote(path).replace("{key}", "\\E" + KEY_REGEX + "\\Q"))
+                : urlPathEqualTo(path);
+        MappingBuilder mapping = get(url)
+                .atPriority(priority)
+                .withQueryParam("apikey", matching(".*"));
+        for (String param : query) {
+            int eq = param.indexOf('=');
+            String value = param.substring(eq + 1);
+            StringValuePattern pattern = "*".equals(value) ? matching(".*") : equalTo(value);
+            mapping.withQueryParam(param.substring(0, eq), pattern);
+        }
+        return mapping.willReturn(aResponse()
+                .withStatus(200)
+                .withHeader("Content-Type", "application/json")
+                .withBody(MockFixtures.bytes(fixture)));
+    }
+
+    /** Регистрирует все стабы таблицы на сервере в порядке объявления. */
+    static void registerAll(WireMockServer wm) {
+        for (MockStub stub : values()) {
+            wm.addStubMapping(stub.mapping.build());
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package study.api;
+
+import io.restassured.response.Response;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Держит «горячие» локации прогретыми: текущая погода, дневной прогноз и индексы
+ * обновляются в фоне до истечения TTL, а чтение — это поиск в памяти.
+ * <p>
+ * TTL берётся по семейству эндпоинта из {@link ResponseCache#defaultTtls()}. Обновление
+ * планируется на {@link #REFRESH_AHEAD} TTL со случайным разбросом ±jitter, чтобы
+ * обновления разных локаций не совпадали. Протухшее значение отдаётся сразу, а обновление
+ * запускается в фоне (stale-while-revalidate); ждёт только первое чтение ещё не загруженной записи.
+ */
+final class PrefetchScheduler implements AutoCloseable {
+
+    static final double REFRESH_AHEAD = 0.8;
+    static final double DEFAULT_JITTER = 0.1;
+    static final int DEFAULT_MAX_IN_FLIGHT = 4;
+    static final Duration DEFAULT_WARM_UP_SPREAD = Duration.ofSeconds(2);
+
+    enum Kind {
+        CURRENT_CONDITIONS(EndpointFamily.CURRENT_CONDITIONS, json -> WeatherJson.currentConditions(json).get(0)),
+        DAILY_FORECAST(EndpointFamily.FORECASTS, WeatherJson::dailyColumns),
+        INDICES(EndpointFamily.INDICES, json -> json);
+
+        final EndpointFamily family;
+        final Function<byte[], Object> decode;
+
+        Kind(EndpointFamily family, Function<byte[], Object> decode) {
+            this.family = family;
+            this.decode = decode;
+        }
+    }
+
+    private final AccuWeatherClient client;
+    private final Map<Kind, Long> ttlNanos = new EnumMap<>(Kind.class);
+    private final double jitter;
+    private final long warmUpSpreadNanos;
+    private final LongSupplier clock;
+    private final ScheduledExecutorService timer;
+    private final ExecutorService workers;
+    private final Map<String, Map<Kind, Slot>> locations = new ConcurrentHashMap<>();
+
+    final LongAdder freshReads = new LongAdder();
+    final LongAdder staleReads = new LongAdder();
+    final LongAdder coldReads = new LongAdder();
+    final LongAdder refreshes = new LongAdder();
+    final LongAdder failures = new LongAdder();
+
+    PrefetchScheduler(AccuWeatherClient client) {
+        this(client, ResponseCache.defaultTtls(), DEFAULT_JITTER, DEFAULT_WARM_UP_SPREAD,
+                DEFAULT_MAX_IN_FLIGHT, System::nanoTime);
+    }
+
+    /**
+     * @param ttls         TTL по семействам эндпоинтов; нужны CURRENT_CONDITIONS, FORECASTS и INDICES
+     * @param jitter       доля интервала обновления, на которую он случайно сдвигается в обе стороны
+     * @param warmUpSpread первые загрузки новых локаций разбрасываются на этот интервал
+     * @param maxInFlight  сколько обновлений идёт одновременно
+     * @param clock        источник времени в наносекундах для свежести (подменяется в тестах)
+     */
+    PrefetchScheduler(AccuWeatherClient client, Map<EndpointFamily, Duration> ttls, double jitter,
+                      Duration warmUpSpread, int maxInFlight, LongSupplier clock) {
+        if (jitter < 0 || jitter >= 1) throw new IllegalArgumentException("jitter must be in [0, 1): " + jitter);
+        for (Kind kind : Kind.values()) {
+            Duration ttl = ttls.get(kind.family);
+            if (ttl == null || ttl.isZero() || ttl.isNegative()) {
+                throw new IllegalArgumentException("No TTL for " + kind.family);
+            }
+            ttlNanos.put(kind, ttl.toNanos());
+        }
+        this.client = client;
+        this.jitter = jitter;
+        this.warmUpSpreadNanos = warmUpSpread.toNanos();
+        this.clock = clock;
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "prefetch-timer"));
+        AtomicInteger n = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(maxInFlight, r -> daemon(r, "prefetch-" + n.incrementAndGet()));
+    }
+
+    private static Thread daemon(Runnable r, String name) {
+        Thread t = new Thread(r, name);
+        t.setDaemon(true);
+        return t;
+    }
+
+    // ------- рабочий набор --------
+
+    /** Добавляет локацию в рабочий набор; первая загрузка — в пределах warmUpSpread. */
+    void track(String locationKey) {
+        slots(locationKey);
+    }
+
+    // computeIfAbsent отдаёт записи атомарно: untrack между добавлением и чтением не оставит null
+    private Map<Kind, Slot> slots(String locationKey) {
+        return locations.computeIfAbsent(locationKey, key -> {
+            Map<Kind, Slot> slots = new EnumMap<>(Kind.class);
+            for (Kind kind : Kind.values()) {
+                Slot slot = new Slot(key, kind);
+                slots.put(kind, slot);
+                long delay = warmUpSpreadNanos == 0 ? 0 : ThreadLocalRandom.current().nextLong(warmUpSpreadNanos);
+                slot.schedule(delay);
+            }
+            return slots;
+        });
+    }
+
+    /** Рабочий набор из /locations/v1/topcities/{count}. */
+    List<String> trackTopCities(int count) {
+        Response response = client.topCities(count);
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("HTTP " + response.statusCode() + " for top cities");
+        }
+        List<String> keys = new ArrayList<>();
+        for (TopCity city : WeatherJson.topCities(response.asByteArray())) {
+            if (city.key() == null) continue;
+            track(city.key());
+            keys.add(city.key());
+        }
+        return keys;
+    }
+
+    void untrack(String locationKey) {
+        Map<Kind, Slot> slots = locations.remove(locationKey);
+        if (slots != null) slots.values().forEach(Slot::cancel);
+    }
+
+    int tracked() {
+        return locations.size();
+    }
+
+    /** Все записи локации уже загружены хотя бы раз. */
+    boolean isWarm(String locationKey) {
+        Map<Kind, Slot> slots = locations.get(locationKey);
+        if (slots == null) return false;
+        for (Slot slot : slots.values()) {
+            if (slot.value == null) return false;
+        }
+        return true;
+    }
+
+    // ------- чтение --------
+
+    CurrentCondition currentConditions(String locationKey) {
+        return (CurrentCondition) read(locationKey, Kind.CURRENT_CONDITIONS);
+    }
+
+    /** Прогноз на 5 дней в колоночном виде. */
+    ForecastColumns dailyForecast(String locationKey) {
+        return (ForecastColumns) read(locationKey, Kind.DAILY_FORECAST);
+    }
+
+    /** Копия тела /indices/v1/daily/1day/{key}: закэшированный массив наружу не отдаётся. */
+    byte[] indices(String locationKey) {
+        return ((byte[]) read(locationKey, Kind.INDICES)).clone();
+    }
+
+    private Object read(String locationKey, Kind kind) {
+        Slot slot = slots(locationKey).get(kind);
+        Object value = slot.value;
+        if (value == null) {
+            coldReads.increment();
+            return slot.refresh().join();
+        }
+        if (clock.getAsLong() - slot.fetchedAt > ttlNanos.get(kind)) {
+            staleReads.increment();
+            slot.refresh();
+        } else {
+            freshReads.increment();
+        }
+        return value;
+    }
+
+    /**
+     * Задержка до следующего обновления: {@link #REFRESH_AHEAD} TTL, сдвинутые на ±jitter.
+     *
+     * @param random равномерное в [0, 1)
+     */
+    static long nextRefreshNanos(long ttlNanos, double jitter, double random) {
+        return (long) (ttlNanos * REFRESH_AHEAD * (1 + jitter * (2 * random - 1)));
+    }
+
+    private Object load(String locationKey, Kind kind) {
+        Response response = switch (kind) {
+            case CURRENT_CONDITIONS -> client.currentConditions(locationKey);
+            case DAILY_FORECAST -> client.dailyForecast(locationKey, 5);
+            case INDICES -> client.indices(locationKey, 1);
+        };
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("HTTP " + response.statusCode() + " for " + kind + " " + locationKey);
+        }
+        return kind.decode.apply(response.asByteArray());
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    /** Одна запись локации: значение, время загрузки, текущее обновление и следующий запуск по таймеру. */
+    private final class Slot {
+        final String locationKey;
+        final Kind kind;
+        volatile Object value;
+        volatile long fetchedAt;
+        private boolean cancelled;
+        final AtomicReference<CompletableFuture<Object>> inFlight = new AtomicReference<>();
+        private ScheduledFuture<?> next;
+
+        Slot(String locationKey, Kind kind) {
+            this.locationKey = locationKey;
+            this.kind = kind;
+        }
+
+        /** Одновременные вызовы получают одно и то же обновление. */
+        CompletableFuture<Object> refresh() {
+            while (true) {
+                CompletableFuture<Object> running = inFlight.get();
+                if (running != null) return running;
+                CompletableFuture<Object> created = new CompletableFuture<>();
+                if (!inFlight.compareAndSet(null, created)) continue;
+                try {
+                    workers.execute(() -> {
+                        try {
+                            Object loaded = load(locationKey, kind);
+                            fetchedAt = clock.getAsLong();
+                            value = loaded;
+                            refreshes.increment();
+                            created.complete(loaded);
+                        } catch (Exception e) {
+                            // в том числе необъявленные IOException из Rest Assured;
+                            // прежнее значение остаётся и отдаётся дальше как протухшее
+                            failures.increment();
+                            created.completeExceptionally(e);
+                        } finally {
+                            inFlight.set(null);
+                            schedule(nextRefreshNanos(ttlNanos.get(kind), jitter, ThreadLocalRandom.current().nextDouble()));
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    // после close() задача не запустится: иначе холодное чтение ждало бы вечно
+                    inFlight.set(null);
+                    created.completeExceptionally(e);
+                }
+                return created;
+            }
+        }
+
+        // обновление, начатое до untrack или close, не планирует следующее
+        synchronized void schedule(long delayNanos) {
+            if (cancelled || timer.isShutdown()) return;
+            if (next != null) next.cancel(false);
+            next = timer.schedule(this::refresh, delayNanos, TimeUnit.NANOSECONDS);
+        }
+
+        synchronized void cancel() {
+            cancelled = true;
+            if (next != null) next.cancel(false);
+        }
+    }
+}
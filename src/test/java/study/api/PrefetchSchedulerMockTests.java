@@ -0,0 +1,140 @@
+package study.api;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import org.junit.jupiter.api.*;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Фоновый прогрев горячих локаций против WireMock: чтение из памяти и stale-while-revalidate.
+ */
+public class PrefetchSchedulerMockTests {
+
+    static final long MINUTE = Duration.ofMinutes(1).toNanos();
+
+    WireMockServer wm;
+    AtomicLong clock = new AtomicLong();
+    PrefetchScheduler scheduler;
+
+    @BeforeEach
+    void start() {
+        wm = new WireMockServer(options().dynamicPort());
+        wm.start();
+        MockStub.registerAll(wm);
+        Map<EndpointFamily, Duration> ttls = new EnumMap<>(EndpointFamily.class);
+        for (EndpointFamily family : EndpointFamily.values()) ttls.put(family, Duration.ofMinutes(1));
+        AccuWeatherClient client = new AccuWeatherClient("http://localhost:" + wm.port(), "TEST");
+        scheduler = new PrefetchScheduler(client, ttls, PrefetchScheduler.DEFAULT_JITTER, Duration.ZERO, 4, clock::get);
+    }
+
+    @AfterEach
+    void stop() {
+        scheduler.close();
+        wm.stop();
+    }
+
+    @Test @DisplayName("Tracked location is warmed in the background and read from memory")
+    void warmReadsDoNotHitApi() {
+        scheduler.track("294021");
+        Await.until(() -> scheduler.isWarm("294021"));
+        int requests = wm.getAllServeEvents().size();
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(scheduler.currentConditions("294021").weatherText(), notNullValue());
+            assertThat(scheduler.dailyForecast("294021").size(), is(5));
+            assertThat(scheduler.indices("294021").length, greaterThan(0));
+        }
+
+        assertThat(wm.getAllServeEvents().size(), is(requests));
+        assertThat(scheduler.freshReads.sum(), is(300L));
+        assertThat(scheduler.coldReads.sum(), is(0L));
+    }
+
+    @Test @DisplayName("Stale value is served while a slow refresh runs")
+    void staleWhileRevalidate() {
+        scheduler.track("294021");
+        Await.until(() -> scheduler.isWarm("294021"));
+        long refreshed = scheduler.refreshes.sum();
+        wm.stubFor(get(urlPathMatching("/currentconditions/v1/\\d+")).atPriority(1)
+                .willReturn(aResponse().withStatus(200).withFixedDelay(1_500)
+                        .withBody(MockFixtures.bytes(MockStub.CURRENT_CONDITIONS.fixture))));
+        clock.addAndGet(2 * MINUTE);
+
+        long start = System.nanoTime();
+        CurrentCondition stale = scheduler.currentConditions("294021");
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertThat(stale, notNullValue());
+        assertThat(elapsedMillis, lessThan(500L));
+        assertThat(scheduler.staleReads.sum(), is(1L));
+        Await.until(() -> scheduler.refreshes.sum() > refreshed);
+    }
+
+    @Test @DisplayName("Indices are handed out as a copy of the cached body")
+    void indicesAreCopied() {
+        byte[] first = scheduler.indices("294021");
+        byte[] original = first.clone();
+        first[0] ^= 1;
+
+        assertThat(scheduler.indices("294021"), is(original));
+    }
+
+    @Test @DisplayName("Cold read after close fails instead of waiting forever")
+    void coldReadAfterClose() {
+        scheduler.close();
+
+        Assertions.assertTimeoutPreemptively(Duration.ofSeconds(5), () ->
+                Assertions.assertThrows(CompletionException.class, () -> scheduler.currentConditions("294021")));
+    }
+
+    @Test @DisplayName("Cold read of an unreachable API fails instead of waiting forever")
+    void coldReadUnreachable() {
+        AccuWeatherClient dead = new AccuWeatherClient(MockServers.unreachableUrl(), "TEST");
+        try (PrefetchScheduler unreachable = new PrefetchScheduler(dead, ResponseCache.defaultTtls(),
+                PrefetchScheduler.DEFAULT_JITTER, Duration.ZERO, 1, clock::get)) {
+            Assertions.assertTimeoutPreemptively(Duration.ofSeconds(10), () ->
+                    Assertions.assertThrows(CompletionException.class, () -> unreachable.currentConditions("294021")));
+            assertThat(unreachable.failures.sum(), greaterThan(0L));
+        }
+    }
+
+    @Test @DisplayName("Untracking a location while it is read does not break the read")
+    void untrackDuringRead() throws Exception {
+        scheduler.track("294021");
+        Await.until(() -> scheduler.isWarm("294021"));
+        Thread untracker = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) scheduler.untrack("294021");
+        });
+        untracker.start();
+        try {
+            for (int i = 0; i < 200; i++) {
+                assertThat(scheduler.dailyForecast("294021").size(), is(5));
+            }
+        } finally {
+            untracker.interrupt();
+            untracker.join();
+        }
+    }
+
+    @Test @DisplayName("Top cities become the working set")
+    void topCitiesWorkingSet() {
+        assertThat(scheduler.trackTopCities(50), hasSize(scheduler.tracked()));
+        assertThat(scheduler.tracked(), greaterThan(0));
+    }
+
+    @Test @DisplayName("Refresh delay is spread around the refresh-ahead point")
+    void jitterBounds() {
+        assertThat(PrefetchScheduler.nextRefreshNanos(1_000, 0.1, 0.0), is(720L));
+        assertThat(PrefetchScheduler.nextRefreshNanos(1_000, 0.1, 0.5), is(800L));
+        assertThat(PrefetchScheduler.nextRefreshNanos(1_000, 0.1, 0.999), is(879L));
+    }
+}
@@ -0,0 +1,278 @@
+package study.api;
+
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Ограничитель запросов к AccuWeather для {@link AccuWeatherClient}:
+ * token bucket на каждый API-ключ, счётчик дневной квоты ключа (сброс в полночь UTC),
+ * повтор с паузой на 429/503 (Retry-After или экспоненциальный backoff)
+ * и переключение на следующий ключ, когда текущий получил 503 «exceeded» или 401 о неверном ключе.
+ * Остальные 401/403 — обычный ответ бесплатного тарифа на платный эндпоинт: он возвращается как есть,
+ * ключ остаётся в работе.
+ * <p>
+ * Ответы, отданные {@link ResponseCache} без обращения к API, квоту не расходуют и токенов не ждут:
+ * ожидание токена — фильтр {@link #pacing}, который клиент ставит после своих фильтров, то есть после кэша.
+ */
+public final class QuotaGovernor {
+
+    static final int FREE_TIER_DAILY_QUOTA = 50;
+    static final int DEFAULT_MAX_RETRIES = 3;
+    static final long BASE_BACKOFF_MILLIS = 200;
+    static final long MAX_BACKOFF_MILLIS = 30_000;
+
+    /** Все ключи исчерпали дневную квоту или отключены — запрос даже не отправлялся. */
+    static final class QuotaExhaustedException extends IllegalStateException {
+        QuotaExhaustedException(String message) {
+            super(message);
+        }
+    }
+
+    private final List<KeyState> keys = new ArrayList<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private final int maxRetries;
+    private final Clock clock;
+
+    /** Ждёт токен ключа из apikey запроса; стоит в цепочке после кэша. */
+    final Filter pacing = this::awaitPermit;
+
+    /**
+     * @param apiKeys          ключи, между которыми распределяется нагрузка
+     * @param dailyQuota       запросов в сутки на один ключ
+     * @param requestsPerSecond устойчивая частота на один ключ
+     * @param burst            сколько запросов ключ может отправить подряд без ожидания
+     */
+    public QuotaGovernor(List<String> apiKeys, int dailyQuota, double requestsPerSecond, int burst) {
+        this(apiKeys, dailyQuota, requestsPerSecond, burst, DEFAULT_MAX_RETRIES, Clock.systemUTC());
+    }
+
+    QuotaGovernor(List<String> apiKeys, int dailyQuota, double requestsPerSecond, int burst,
+                  int maxRetries, Clock clock) {
+        if (apiKeys.isEmpty()) throw new IllegalArgumentException("At least one API key is required");
+        if (dailyQuota <= 0 || requestsPerSecond <= 0 || burst <= 0 || maxRetries < 0) {
+            throw new IllegalArgumentException("dailyQuota, requestsPerSecond and burst must be positive");
+        }
+        for (String key : apiKeys) {
+            keys.add(new KeyState(key, dailyQuota, new TokenBucket(requestsPerSecond, burst)));
+        }
+        this.maxRetries = maxRetries;
+        this.clock = clock;
+    }
+
+    /** @param apiKeysCsv ключи через запятую, как API_KEYS в config.properties */
+    static List<String> parseKeys(String apiKeysCsv) {
+        return Arrays.stream(apiKeysCsv.split(","))
+                .map(String::trim)
+                .filter(k -> !k.isEmpty())
+                .toList();
+    }
+
+    /**
+     * Выполняет вызов с выбранным ключом, повторяя его по правилам класса.
+     * Если ключи кончились после ответов 401/503, отключивших ключ, возвращается последний такой ответ.
+     *
+     * @throws QuotaExhaustedException если ни одного ключа не осталось до первой попытки
+     */
+    Response execute(Function<String, Response> call) {
+        Response last = null;
+        int retries = 0;
+        while (true) {
+            KeyState key = pick();
+            if (key == null) {
+                if (last != null) return last;
+                throw new QuotaExhaustedException("All " + keys.size() + " API keys are out of daily quota");
+            }
+            Response response = call.apply(key.apiKey);
+            if ("HIT".equals(response.header(ResponseCache.CACHE_HEADER))) {
+                key.refund();
+                return response;
+            }
+
+            int status = response.statusCode();
+            if ((status == 401 && keyRejected(response)) || (status == 503 && quotaExceeded(response))) {
+                key.exhaust(today());
+                last = response;
+            } else if ((status == 429 || status == 503) && retries < maxRetries) {
+                key.pause(backoffMillis(response, retries++));
+                last = response;
+            } else {
+                return response;
+            }
+        }
+    }
+
+    /** Запросов, оставшихся у ключа на сегодня (для отчётов и тестов). */
+    int remaining(String apiKey) {
+        KeyState key = state(apiKey);
+        if (key == null) throw new IllegalArgumentException("Unknown API key");
+        return key.remaining(today());
+    }
+
+    private KeyState state(String apiKey) {
+        for (KeyState key : keys) {
+            if (key.apiKey.equals(apiKey)) return key;
+        }
+        return null;
+    }
+
+    private Response awaitPermit(FilterableRequestSpecification req, FilterableResponseSpecification res,
+                                 FilterContext ctx) {
+        String apiKey = req.getQueryParams().get("apikey");
+        KeyState key = apiKey == null ? null : state(apiKey);
+        if (key != null) key.awaitPermit();
+        return ctx.next(req, res);
+    }
+
+    // По кругу первый ключ с квотой и без паузы; если все на паузе — тот, что освободится раньше
+    private KeyState pick() {
+        LocalDate today = today();
+        int start = Math.floorMod(next.getAndIncrement(), keys.size());
+        KeyState soonest = null;
+        for (int i = 0; i < keys.size(); i++) {
+            KeyState key = keys.get((start + i) % keys.size());
+            if (!key.reserve(today)) continue;
+            if (!key.paused()) {
+                if (soonest != null) soonest.refund();
+                return key;
+            }
+            if (soonest == null || key.pausedUntil - soonest.pausedUntil < 0) {
+                if (soonest != null) soonest.refund();
+                soonest = key;
+            } else {
+                key.refund();
+            }
+        }
+        return soonest;
+    }
+
+    private LocalDate today() {
+        return LocalDate.now(clock.withZone(ZoneOffset.UTC));
+    }
+
+    // AccuWeather отвечает на превышение квоты 503 с "The allowed number of requests has been exceeded."
+    static boolean quotaExceeded(Response response) {
+        return response.asString().contains("exceeded");
+    }
+
+    // 401 о самом ключе ("Invalid API key"), а не о недоступном на тарифе эндпоинте
+    static boolean keyRejected(Response response) {
+        return response.asString().toLowerCase(Locale.ROOT).contains("invalid");
+    }
+
+    static long backoffMillis(Response response, int retry) {
+        String retryAfter = response.header("Retry-After");
+        if (retryAfter != null) {
+            try {
+                return Math.min(TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim())), MAX_BACKOFF_MILLIS);
+            } catch (NumberFormatException e) {
+                // HTTP-date вместо секунд — используем обычный backoff
+            }
+        }
+        return Math.min(BASE_BACKOFF_MILLIS << Math.min(retry, 20), MAX_BACKOFF_MILLIS);
+    }
+
+    private static final class KeyState {
+        final String apiKey;
+        final int dailyQuota;
+        final TokenBucket bucket;
+        volatile long pausedUntil = System.nanoTime();
+
+        private LocalDate day;
+        private int used;
+        private boolean exhausted;
+
+        KeyState(String apiKey, int dailyQuota, TokenBucket bucket) {
+            this.apiKey = apiKey;
+            this.dailyQuota = dailyQuota;
+            this.bucket = bucket;
+        }
+
+        /** Занимает один запрос из дневной квоты; false — квота на сегодня кончилась. */
+        synchronized boolean reserve(LocalDate today) {
+            rollOver(today);
+            if (exhausted || used >= dailyQuota) return false;
+            used++;
+            return true;
+        }
+
+        synchronized void refund() {
+            if (used > 0) used--;
+        }
+
+        synchronized void exhaust(LocalDate today) {
+            rollOver(today);
+            exhausted = true;
+        }
+
+        synchronized int remaining(LocalDate today) {
+            rollOver(today);
+            return exhausted ? 0 : dailyQuota - used;
+        }
+
+        private void rollOver(LocalDate today) {
+            if (!today.equals(day)) {
+                day = today;
+                used = 0;
+                exhausted = false;
+            }
+        }
+
+        boolean paused() {
+            return pausedUntil - System.nanoTime() > 0;
+        }
+
+        // Пауза общая для всех потоков, использующих ключ: после 429 не долбим API дальше
+        void pause(long millis) {
+            long until = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+            synchronized (this) {
+                if (until - pausedUntil > 0) pausedUntil = until;
+            }
+        }
+
+        void awaitPermit() {
+            parkUntil(pausedUntil);
+            parkUntil(bucket.reserve(System.nanoTime()));
+        }
+    }
+
+    /** GCRA-вариант token bucket: хранит только теоретическое время следующего запроса. */
+    static final class TokenBucket {
+        private final long intervalNanos;
+        private final long toleranceNanos;
+        private long tat = System.nanoTime();
+
+        TokenBucket(double permitsPerSecond, int burst) {
+            this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+            this.toleranceNanos = intervalNanos * (burst - 1);
+        }
+
+        /** @return момент (System.nanoTime), не раньше которого можно отправить запрос */
+        synchronized long reserve(long now) {
+            long permitAt = Math.max(now, tat - toleranceNanos);
+            tat = Math.max(tat, permitAt) + intervalNanos;
+            return permitAt;
+        }
+    }
+
+    private static void parkUntil(long deadline) {
+        long wait;
+        while ((wait = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(wait);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package study.api;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
+import org.junit.jupiter.api.*;
+
+import java.time.Clock;
+import java.util.List;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+
+/**
+ * Ограничитель квоты против сценариев WireMock: исчерпание квоты ключа, 429 с Retry-After,
+ * дневной счётчик и отказ всех ключей.
+ */
+public class QuotaGovernorMockTests {
+
+    static final String PATH = "/currentconditions/v1/294021";
+    static final String EXCEEDED = "{\"Code\":\"ServiceUnavailable\","
+            + "\"Message\":\"The allowed number of requests has been exceeded.\"}";
+    static final String INVALID_KEY = "{\"Code\":\"Unauthorized\",\"Message\":\"Invalid API key.\"}";
+
+    WireMockServer wm;
+
+    @BeforeEach
+    void start() {
+        wm = new WireMockServer(options().dynamicPort());
+        wm.start();
+        MockStub.registerAll(wm);
+    }
+
+    @AfterEach
+    void stop() {
+        wm.stop();
+    }
+
+    AccuWeatherClient client(QuotaGovernor governor) {
+        return new AccuWeatherClient("http://localhost:" + wm.port(), governor);
+    }
+
+    QuotaGovernor governor(int dailyQuota, String... keys) {
+        return new QuotaGovernor(List.of(keys), dailyQuota, 1000, 10, 3, Clock.systemUTC());
+    }
+
+    @Test @DisplayName("Exhausted key is dropped and the call moves to the next key")
+    void switchesKeyOnQuotaExhaustion() {
+        wm.stubFor(get(urlPathEqualTo(PATH)).atPriority(1)
+                .withQueryParam("apikey", equalTo("A"))
+                .willReturn(aResponse().withStatus(503).withBody(EXCEEDED)));
+        QuotaGovernor governor = governor(50, "A", "B");
+        AccuWeatherClient client = client(governor);
+
+        client.currentConditions("294021").then().statusCode(200);
+        client.currentConditions("294021").then().statusCode(200);
+
+        wm.verify(1, getRequestedFor(urlPathEqualTo(PATH)).withQueryParam("apikey", equalTo("A")));
+        wm.verify(2, getRequestedFor(urlPathEqualTo(PATH)).withQueryParam("apikey", equalTo("B")));
+        Assertions.assertEquals(0, governor.remaining("A"));
+        Assertions.assertEquals(48, governor.remaining("B"));
+    }
+
+    @Test @DisplayName("429 with Retry-After is retried")
+    void retriesAfterTooManyRequests() {
+        wm.stubFor(get(urlPathEqualTo(PATH)).atPriority(1)
+                .inScenario("throttle").whenScenarioStateIs(Scenario.STARTED)
+                .willReturn(aResponse().withStatus(429).withHeader("Retry-After", "0"))
+                .willSetStateTo("open"));
+
+        client(governor(50, "A")).currentConditions("294021").then().statusCode(200);
+
+        wm.verify(2, getRequestedFor(urlPathEqualTo(PATH)));
+    }
+
+    @Test @DisplayName("Daily quota stops calls before they reach the API")
+    void dailyQuotaIsEnforced() {
+        AccuWeatherClient client = client(governor(2, "A"));
+        client.currentConditions("294021");
+        client.currentConditions("294021");
+
+        Assertions.assertThrows(QuotaGovernor.QuotaExhaustedException.class,
+                () -> client.currentConditions("294021"));
+        wm.verify(2, getRequestedFor(urlPathEqualTo(PATH)));
+    }
+
+    @Test @DisplayName("When every key is rejected the last 401 is returned")
+    void returnsLastRejectionWhenAllKeysFail() {
+        wm.stubFor(get(urlPathEqualTo(PATH)).atPriority(1)
+                .willReturn(aResponse().withStatus(401).withBody(INVALID_KEY)));
+
+        client(governor(50, "A", "B")).currentConditions("294021").then().statusCode(401);
+
+        wm.verify(2, getRequestedFor(urlPathEqualTo(PATH)));
+    }
+
+    @Test @DisplayName("Free-tier 401/403 is returned as is and keeps the key")
+    void endpointRejectionKeepsKey() {
+        wm.stubFor(get(urlPathEqualTo(PATH)).atPriority(1)
+                .willReturn(aResponse().withStatus(403).withBody("{\"Code\":\"Unauthorized\"}")));
+        QuotaGovernor governor = governor(50, "A");
+        AccuWeatherClient client = client(governor);
+
+        client.currentConditions("294021").then().statusCode(403);
+        client.dailyForecast("294021", 5).then().statusCode(200);
+
+        Assertions.assertEquals(48, governor.remaining("A"));
+    }
+
+    @Test @DisplayName("Cache hits neither wait for a token nor spend quota")
+    void cacheHitsAreNotThrottled() {
+        QuotaGovernor governor = new QuotaGovernor(List.of("A"), 50, 1, 1, 3, Clock.systemUTC());
+        AccuWeatherClient client = new AccuWeatherClient("http://localhost:" + wm.port(), governor, new ResponseCache());
+
+        client.currentConditions("294021").then().statusCode(200);
+        long start = System.nanoTime();
+        for (int i = 0; i < 4; i++) client.currentConditions("294021").then().statusCode(200);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // при 1 rps четыре запроса в API ждали бы токены ~3 с
+        Assertions.assertTrue(elapsedMillis < 900, "4 cache hits took " + elapsedMillis + " ms");
+        Assertions.assertEquals(49, governor.remaining("A"));
+        wm.verify(1, getRequestedFor(urlPathEqualTo(PATH)));
+    }
+}
@@ -0,0 +1,145 @@
+package study.api;
+
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Клиентский кэш ответов AccuWeather в виде фильтра Rest Assured.
+ * Свежая запись (моложе TTL своего {@link EndpointFamily}) отдаётся без запроса;
+ * протухшая запись с ETag перепроверяется через If-None-Match, и на 304 продлевается.
+ * Размер ограничен, вытесняется давно не читанная запись (LRU).
+ * <p>
+ * Кэшируются только GET с ответом 200. apikey в ключ не входит: ответ от ключа не зависит.
+ * Фильтр ставится последним в списке фильтров клиента — тогда логирование и Allure
+ * видят и запросы, отданные из кэша.
+ */
+final class ResponseCache implements Filter {
+
+    static final int DEFAULT_MAX_ENTRIES = 1024;
+    /** Заголовок ответа, отданного без обращения к API: HIT — из кэша, REVALIDATED — после 304. */
+    static final String CACHE_HEADER = "X-Cache";
+
+    private final Map<EndpointFamily, Long> ttlNanos = new EnumMap<>(EndpointFamily.class);
+    private final LongSupplier clock;
+    private final Map<String, Entry> entries;
+
+    final LongAdder hits = new LongAdder();
+    final LongAdder misses = new LongAdder();
+    final LongAdder revalidated = new LongAdder();
+
+    private static final class Entry {
+        final Response response;
+        final String etag;
+        volatile long expiresAt;
+
+        Entry(Response response, String etag, long expiresAt) {
+            this.response = response;
+            this.etag = etag;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /** Кэш с TTL по умолчанию, см. {@link #defaultTtls()}. */
+    ResponseCache() {
+        this(DEFAULT_MAX_ENTRIES, defaultTtls(), System::nanoTime);
+    }
+
+    /**
+     * @param ttls  TTL по семействам; семейство без TTL или с нулевым TTL не кэшируется
+     * @param clock источник времени в наносекундах (подменяется в тестах)
+     */
+    ResponseCache(int maxEntries, Map<EndpointFamily, Duration> ttls, LongSupplier clock) {
+        if (maxEntries <= 0) throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+        ttls.forEach((family, ttl) -> ttlNanos.put(family, ttl.toNanos()));
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /** Локации почти не меняются, прогнозы — не чаще раза в час, предупреждения — в любой момент. */
+    static Map<EndpointFamily, Duration> defaultTtls() {
+        Map<EndpointFamily, Duration> ttls = new EnumMap<>(EndpointFamily.class);
+        ttls.put(EndpointFamily.LOCATIONS, Duration.ofHours(24));
+        ttls.put(EndpointFamily.CURRENT_CONDITIONS, Duration.ofMinutes(10));
+        ttls.put(EndpointFamily.FORECASTS, Duration.ofHours(1));
+        ttls.put(EndpointFamily.INDICES, Duration.ofHours(3));
+        ttls.put(EndpointFamily.ALERTS, Duration.ofMinutes(1));
+        return ttls;
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification req, FilterableResponseSpecification res, FilterContext ctx) {
+        long ttl = ttlNanos.getOrDefault(EndpointFamily.of(req.getUserDefinedPath()), 0L);
+        if (ttl <= 0 || !"GET".equals(req.getMethod())) {
+            return ctx.next(req, res);
+        }
+
+        String key = key(req.getURI());
+        Entry cached;
+        synchronized (entries) {
+            cached = entries.get(key);
+        }
+        long now = clock.getAsLong();
+        if (cached != null && now - cached.expiresAt < 0) {
+            hits.increment();
+            return copy(cached.response, "HIT");
+        }
+
+        if (cached != null && cached.etag != null) {
+            req.header("If-None-Match", cached.etag);
+        }
+        Response response = ctx.next(req, res);
+        now = clock.getAsLong();
+
+        if (cached != null && response.statusCode() == 304) {
+            revalidated.increment();
+            cached.expiresAt = now + ttl;
+            return copy(cached.response, "REVALIDATED");
+        }
+        misses.increment();
+        if (response.statusCode() == 200) {
+            Entry entry = new Entry(response, response.header("ETag"), now + ttl);
+            synchronized (entries) {
+                entries.put(key, entry);
+            }
+        }
+        return response;
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    // apikey вырезается, остальные параметры и их порядок задаёт клиент — URI стабилен
+    static String key(String uri) {
+        return uri.replaceAll("([?&])apikey=[^&]*&?", "$1");
+    }
+
+    // Каждому вызывающему — своя копия: тело (byte[]) общее, состояние проверок — нет
+    private static Response copy(Response response, String cacheStatus) {
+        return new ResponseBuilder().clone(response).setHeader(CACHE_HEADER, cacheStatus).build();
+    }
+}
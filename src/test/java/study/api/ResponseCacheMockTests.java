@@ -0,0 +1,119 @@
+package study.api;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import org.junit.jupiter.api.*;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Кэш ответов против WireMock: TTL, перепроверка по ETag (304) и LRU-вытеснение.
+ * Время подменяется, поэтому TTL проверяются без ожидания.
+ */
+public class ResponseCacheMockTests {
+
+    static final String ETAG = "\"cc-v1\"";
+    static final Duration TTL = Duration.ofMinutes(10);
+
+    WireMockServer wm;
+    AtomicLong now = new AtomicLong();
+    ResponseCache cache;
+    AccuWeatherClient client;
+
+    @BeforeEach
+    void start() {
+        wm = new WireMockServer(options().dynamicPort());
+        wm.start();
+        MockStub.registerAll(wm);
+        // тот же ответ, что у CURRENT_CONDITIONS, но с ETag, и 304 на If-None-Match
+        wm.stubFor(get(urlPathEqualTo("/currentconditions/v1/294021")).atPriority(1)
+                .withQueryParam("details", absent())
+                .willReturn(aResponse().withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withHeader("ETag", ETAG)
+                        .withBody(MockFixtures.bytes(MockStub.CURRENT_CONDITIONS.fixture))));
+        wm.stubFor(get(urlPathEqualTo("/currentconditions/v1/294021")).atPriority(1)
+                .withQueryParam("details", absent())
+                .withHeader("If-None-Match", equalTo(ETAG))
+                .willReturn(aResponse().withStatus(304).withHeader("ETag", ETAG)));
+        cache = cache(ResponseCache.DEFAULT_MAX_ENTRIES);
+        client = new AccuWeatherClient("http://localhost:" + wm.port(), "TEST", cache);
+    }
+
+    @AfterEach
+    void stop() {
+        wm.stop();
+    }
+
+    ResponseCache cache(int maxEntries) {
+        Map<EndpointFamily, Duration> ttls = ResponseCache.defaultTtls();
+        ttls.put(EndpointFamily.CURRENT_CONDITIONS, TTL);
+        return new ResponseCache(maxEntries, ttls, now::get);
+    }
+
+    @Test @DisplayName("Fresh entry is served without a request")
+    void freshEntryIsServedFromCache() {
+        client.currentConditions("294021").then().statusCode(200);
+        client.currentConditions("294021").then().statusCode(200)
+                .body("[0].WeatherText", is("Cloudy"));
+
+        wm.verify(1, getRequestedFor(urlPathEqualTo("/currentconditions/v1/294021")));
+        Assertions.assertEquals(1, cache.hits.sum());
+    }
+
+    @Test @DisplayName("Expired entry is revalidated with If-None-Match and 304")
+    void expiredEntryIsRevalidated() {
+        client.currentConditions("294021").then().statusCode(200);
+        now.addAndGet(TTL.toNanos() + 1);
+
+        client.currentConditions("294021").then().statusCode(200)
+                .body("[0].WeatherText", is("Cloudy"));
+        client.currentConditions("294021").then().statusCode(200);
+
+        wm.verify(2, getRequestedFor(urlPathEqualTo("/currentconditions/v1/294021")));
+        wm.verify(1, getRequestedFor(urlPathEqualTo("/currentconditions/v1/294021"))
+                .withHeader("If-None-Match", equalTo(ETAG)));
+        Assertions.assertEquals(1, cache.revalidated.sum());
+        Assertions.assertEquals(1, cache.hits.sum());
+    }
+
+    @Test @DisplayName("Different query parameters are cached separately")
+    void queryIsPartOfKey() {
+        client.currentConditions("294021").then().statusCode(200);
+        client.currentConditions("294021", true).then().statusCode(200)
+                .body("[0].RealFeelTemperature.Metric.Unit", is("C"));
+
+        Assertions.assertEquals(2, cache.size());
+        Assertions.assertEquals(0, cache.hits.sum());
+    }
+
+    @Test @DisplayName("Least recently used entry is evicted")
+    void leastRecentlyUsedIsEvicted() {
+        cache = cache(2);
+        client = new AccuWeatherClient("http://localhost:" + wm.port(), "TEST", cache);
+
+        client.citiesSearch("Minsk");
+        client.topCities(50);
+        client.citiesSearch("Minsk");   // Minsk теперь свежее topcities
+        client.indices("294021", 1);    // вытесняет topcities
+        client.citiesSearch("Minsk");
+        client.topCities(50);
+
+        Assertions.assertEquals(2, cache.size());
+        wm.verify(1, getRequestedFor(urlPathEqualTo("/locations/v1/cities/search")));
+        wm.verify(2, getRequestedFor(urlPathEqualTo("/locations/v1/topcities/50")));
+    }
+
+    @Test @DisplayName("Non-200 responses are not cached")
+    void errorsAreNotCached() {
+        client.alerts("unknown").then().statusCode(404);
+        client.alerts("unknown").then().statusCode(404);
+
+        Assertions.assertEquals(0, cache.size());
+    }
+}
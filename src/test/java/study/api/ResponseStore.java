@@ -0,0 +1,314 @@
+package study.api;
+
+import com.github.tomakehurst.wiremock.common.FileSource;
+import com.github.tomakehurst.wiremock.extension.Parameters;
+import com.github.tomakehurst.wiremock.extension.ResponseTransformer;
+import com.github.tomakehurst.wiremock.http.HttpHeader;
+import com.github.tomakehurst.wiremock.http.HttpHeaders;
+import com.github.tomakehurst.wiremock.http.Request;
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Хранилище записанных ответов AccuWeather для офлайн-воспроизведения.
+ * <p>
+ * Формат сегмента — append-only файл: заголовок {@link #MAGIC}, затем записи
+ * [int длина ключа][int длина тела][ключ UTF-8][тело]. Ключ — путь запроса
+ * (эндпоинт и location key) плюс отсортированные query-параметры без apikey, см. {@link #key}.
+ * Недописанная последняя запись (обрыв при записи) при чтении отбрасывается.
+ * <p>
+ * При чтении сегмент отображается в память целиком, индекс ключ → позиции строится одним проходом.
+ * На один ключ может быть много записей — они отдаются по кругу, со своим счётчиком у каждого ключа:
+ * последовательность ответов одного ключа не зависит от обращений к другим. Воспроизведение читает тело
+ * потоком прямо из отображения, без копии в byte[] на каждый ответ.
+ * Запись: -Dstore.record=path в AccuWeatherApiTests; воспроизведение: -Dstore.replay=path в WireMock
+ * ({@link #transformer()}) или прямо в клиенте ({@link #replayFilter()}).
+ */
+final class ResponseStore {
+
+    static final byte[] MAGIC = "AWSTORE1".getBytes(StandardCharsets.US_ASCII);
+    static final String RECORD_PROPERTY = "store.record";
+    static final String REPLAY_PROPERTY = "store.replay";
+
+    private final MappedByteBuffer segment;
+    private final Map<String, Records> index;
+    final int records;
+
+    /** Записи одного ключа в порядке записи и счётчик для выдачи их по кругу. */
+    private static final class Records {
+        // позиция записи упакована в long: старшие 32 бита — смещение тела, младшие — длина
+        final long[] positions;
+        final AtomicInteger cursor = new AtomicInteger();
+
+        Records(long[] positions) {
+            this.positions = positions;
+        }
+
+        long next() {
+            return positions[Math.floorMod(cursor.getAndIncrement(), positions.length)];
+        }
+    }
+
+    private ResponseStore(MappedByteBuffer segment, Map<String, Records> index, int records) {
+        this.segment = segment;
+        this.index = index;
+        this.records = records;
+    }
+
+    /** Открывает сегмент только на чтение; сегмент больше 2 ГБ не поддерживается. */
+    static ResponseStore open(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Segment is larger than 2 GB: " + file);
+            }
+            MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return index(file, segment);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open response store " + file, e);
+        }
+    }
+
+    private static ResponseStore index(Path file, MappedByteBuffer segment) {
+        byte[] magic = new byte[MAGIC.length];
+        if (segment.remaining() < MAGIC.length || !Arrays.equals(magic(segment, magic), MAGIC)) {
+            throw new IllegalStateException("Not a response store segment: " + file);
+        }
+        Map<String, List<Long>> positions = new HashMap<>();
+        int records = 0;
+        int pos = MAGIC.length;
+        int limit = segment.limit();
+        while (pos + 8 <= limit) {
+            int keyLength = segment.getInt(pos);
+            int bodyLength = segment.getInt(pos + 4);
+            int bodyStart = pos + 8 + keyLength;
+            if (keyLength < 0 || bodyLength < 0 || (long) bodyStart + bodyLength > limit) break;
+            byte[] key = new byte[keyLength];
+            segment.get(pos + 8, key);
+            positions.computeIfAbsent(new String(key, StandardCharsets.UTF_8), k -> new ArrayList<>())
+                    .add(((long) bodyStart << 32) | bodyLength);
+            records++;
+            pos = bodyStart + bodyLength;
+        }
+        Map<String, Records> index = new HashMap<>(positions.size() * 2);
+        positions.forEach((key, list) -> index.put(key, new Records(list.stream().mapToLong(Long::longValue).toArray())));
+        return new ResponseStore(segment, index, records);
+    }
+
+    private static byte[] magic(ByteBuffer segment, byte[] into) {
+        segment.get(0, into);
+        return into;
+    }
+
+    /** Хранилище из -Dstore.replay или null, если воспроизведение не включено. */
+    static ResponseStore replayFromProperty() {
+        String path = System.getProperty(REPLAY_PROPERTY);
+        return path == null || path.isBlank() ? null : open(Path.of(path));
+    }
+
+    /**
+     * Канонический ключ: путь и query-параметры в алфавитном порядке, без apikey.
+     *
+     * @param pathAndQuery путь с query или полный URI
+     */
+    static String key(String pathAndQuery) {
+        URI uri = URI.create(pathAndQuery);
+        String query = uri.getRawQuery();
+        if (query == null || query.isEmpty()) return uri.getRawPath();
+        String[] params = Arrays.stream(query.split("&"))
+                .filter(p -> !p.startsWith("apikey="))
+                .sorted()
+                .toArray(String[]::new);
+        return params.length == 0 ? uri.getRawPath() : uri.getRawPath() + "?" + String.join("&", params);
+    }
+
+    int keys() {
+        return index.size();
+    }
+
+    /**
+     * Тело одной из записей ключа — срез отображённого файла без копирования.
+     *
+     * @return null, если ключ не записан
+     */
+    ByteBuffer body(String key) {
+        Records records = index.get(key);
+        if (records == null) return null;
+        long position = records.next();
+        return segment.slice((int) (position >>> 32), (int) position);
+    }
+
+    /** Копия тела — для проверок; воспроизведение идёт через {@link #stream(String)}. */
+    byte[] bodyBytes(String key) {
+        ByteBuffer body = body(key);
+        if (body == null) return null;
+        byte[] bytes = new byte[body.remaining()];
+        body.get(bytes);
+        return bytes;
+    }
+
+    /** Тело записи как поток поверх отображённого файла; null, если ключ не записан. */
+    InputStream stream(String key) {
+        ByteBuffer body = body(key);
+        return body == null ? null : new BufferStream(body);
+    }
+
+    private static final class BufferStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        BufferStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] into, int offset, int length) {
+            if (length == 0) return 0;
+            if (!buffer.hasRemaining()) return -1;
+            int n = Math.min(length, buffer.remaining());
+            buffer.get(into, offset, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+
+    // ------- запись --------
+
+    /**
+     * Фильтр клиента, дописывающий каждый ответ 200 в сегмент. Ставится последним в списке фильтров.
+     * Файл создаётся при необходимости; запись — под общей блокировкой, по одной записи за раз.
+     */
+    static final class Recorder implements Filter, AutoCloseable {
+
+        private final FileChannel channel;
+
+        Recorder(Path file) {
+            try {
+                channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                if (channel.size() == 0) channel.write(ByteBuffer.wrap(MAGIC));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot open response store for append " + file, e);
+            }
+        }
+
+        /** Рекордер из -Dstore.record или null, если запись не включена. */
+        static Recorder fromProperty() {
+            String path = System.getProperty(RECORD_PROPERTY);
+            return path == null || path.isBlank() ? null : new Recorder(Path.of(path));
+        }
+
+        @Override
+        public Response filter(FilterableRequestSpecification req, FilterableResponseSpecification res, FilterContext ctx) {
+            Response response = ctx.next(req, res);
+            if (response.statusCode() == 200) {
+                append(key(req.getURI()), response.asByteArray());
+            }
+            return response;
+        }
+
+        synchronized void append(String key, byte[] body) {
+            byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+            ByteBuffer record = ByteBuffer.allocate(8 + keyBytes.length + body.length)
+                    .putInt(keyBytes.length)
+                    .putInt(body.length)
+                    .put(keyBytes)
+                    .put(body)
+                    .flip();
+            try {
+                while (record.hasRemaining()) channel.write(record);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot append to response store", e);
+            }
+        }
+
+        @Override
+        public synchronized void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    // ------- воспроизведение --------
+
+    /**
+     * Фильтр клиента, отвечающий из хранилища без HTTP. Незаписанный запрос уходит дальше по цепочке.
+     */
+    Filter replayFilter() {
+        return (req, res, ctx) -> {
+            InputStream body = stream(key(req.getURI()));
+            if (body == null) return ctx.next(req, res);
+            return new ResponseBuilder()
+                    .setStatusCode(200)
+                    .setStatusLine("HTTP/1.1 200 OK")
+                    .setContentType("application/json")
+                    .setBody(body)
+                    .build();
+        };
+    }
+
+    /**
+     * Глобальный трансформер WireMock: записанный запрос получает тело из хранилища потоком,
+     * остальные — ответ своего стаба из {@link MockStub} (или 404 запасного стаба). Работает после трансформеров определений,
+     * поэтому задержки профиля деградации сохраняются, а ответы, которые профиль заменил
+     * (503, обрыв, обрезанное тело с явным Content-Length), отдаются как есть.
+     */
+    ResponseTransformer transformer() {
+        return new ResponseTransformer() {
+            @Override
+            public com.github.tomakehurst.wiremock.http.Response transform(
+                    Request request, com.github.tomakehurst.wiremock.http.Response response,
+                    FileSource files, Parameters parameters) {
+                int status = response.getStatus();
+                if ((status != 200 && status != 404) || response.getFault() != null
+                        || response.getHeaders().getHeader("Content-Length").isPresent()) {
+                    return response;
+                }
+                ByteBuffer body = body(key(request.getUrl()));
+                if (body == null) return response;
+                // источник могут открыть не один раз (журнал запросов, запись) — всегда с начала той же записи
+                return com.github.tomakehurst.wiremock.http.Response.Builder.like(response).but()
+                        .status(200)
+                        .headers(new HttpHeaders(HttpHeader.httpHeader("Content-Type", "application/json")))
+                        .body(() -> new BufferStream(body.duplicate()))
+                        .build();
+            }
+
+            @Override
+            public String getName() {
+                return "response-store-replay";
+            }
+        };
+    }
+}
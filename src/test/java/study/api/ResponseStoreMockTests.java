@@ -0,0 +1,116 @@
+package study.api;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Запись ответов WireMock в сегмент ResponseStore и воспроизведение — через клиент и через WireMock.
+ */
+public class ResponseStoreMockTests {
+
+    @TempDir
+    Path dir;
+    WireMockServer wm;
+
+    @BeforeEach
+    void start() {
+        wm = new WireMockServer(options().dynamicPort());
+        wm.start();
+        MockStub.registerAll(wm);
+    }
+
+    @AfterEach
+    void stop() {
+        wm.stop();
+    }
+
+    Path record() {
+        Path segment = dir.resolve("responses.seg");
+        try (ResponseStore.Recorder recorder = new ResponseStore.Recorder(segment)) {
+            AccuWeatherClient client = new AccuWeatherClient("http://localhost:" + wm.port(), "LIVE", recorder);
+            client.currentConditions("294021");
+            client.dailyForecast("294021", 5);
+            client.citiesSearch("Minsk");
+            client.alerts("not-a-key");   // 404 не записывается
+        }
+        return segment;
+    }
+
+    @Test @DisplayName("Recorded responses are indexed by endpoint, location key and query")
+    void recordsAndIndexes() {
+        ResponseStore store = ResponseStore.open(record());
+
+        assertThat(store.records, is(3));
+        assertThat(store.keys(), is(3));
+        assertThat(new String(store.bodyBytes("/forecasts/v1/daily/5day/294021?metric=true")),
+                is(new String(MockFixtures.bytes(MockStub.DAILY_5DAY.fixture))));
+        assertThat(store.body("/currentconditions/v1/000"), nullValue());
+    }
+
+    @Test @DisplayName("Each key cycles through its own records regardless of other keys")
+    void roundRobinPerKey() {
+        Path segment = dir.resolve("cycle.seg");
+        try (ResponseStore.Recorder recorder = new ResponseStore.Recorder(segment)) {
+            AccuWeatherClient client = new AccuWeatherClient("http://localhost:" + wm.port(), "LIVE", recorder);
+            for (String body : new String[]{"[\"first\"]", "[\"second\"]"}) {
+                wm.stubFor(get(urlPathEqualTo("/alerts/v1/294021")).atPriority(1)
+                        .willReturn(aResponse().withStatus(200).withBody(body)));
+                client.alerts("294021");
+            }
+            client.currentConditions("294021");
+        }
+        ResponseStore store = ResponseStore.open(segment);
+
+        for (String expected : new String[]{"[\"first\"]", "[\"second\"]", "[\"first\"]"}) {
+            assertThat(new String(store.bodyBytes("/alerts/v1/294021")), is(expected));
+            assertThat(store.bodyBytes("/currentconditions/v1/294021"), notNullValue());
+        }
+    }
+
+    @Test @DisplayName("Client replays from the store without HTTP")
+    void replaysThroughClient() {
+        ResponseStore store = ResponseStore.open(record());
+        wm.resetAll();   // заглушка больше ничего не отдаёт
+
+        AccuWeatherClient client = new AccuWeatherClient("http://localhost:" + wm.port(), "OTHER", store.replayFilter());
+        client.currentConditions("294021").then().statusCode(200)
+                .body("[0].WeatherText", is("Cloudy"));
+        wm.verify(0, anyRequestedFor(anyUrl()));
+    }
+
+    @Test @DisplayName("WireMock serves recorded bodies for any apikey")
+    void replaysThroughWireMock() {
+        ResponseStore store = ResponseStore.open(record());
+        WireMockServer replay = new WireMockServer(options().dynamicPort().extensions(store.transformer()));
+        replay.start();
+        try {
+            replay.stubFor(any(anyUrl()).willReturn(aResponse().withStatus(404)));
+            AccuWeatherClient client = new AccuWeatherClient("http://localhost:" + replay.port(), "OTHER");
+
+            client.citiesSearch("Minsk").then().statusCode(200)
+                    .body("[0].Key", notNullValue());
+            client.citiesSearch("London").then().statusCode(404);
+        } finally {
+            replay.stop();
+        }
+    }
+
+    @Test @DisplayName("Truncated trailing record is ignored")
+    void truncatedTailIsIgnored() throws IOException {
+        Path segment = record();
+        Files.write(segment, new byte[] {0, 0, 0, 5, 0, 0}, StandardOpenOption.APPEND);
+
+        assertThat(ResponseStore.open(segment).records, is(3));
+    }
+}
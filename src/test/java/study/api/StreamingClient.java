@@ -0,0 +1,121 @@
+package study.api;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Клиент для чтения больших ответов без буферизации: тело gzip распаковывается на лету
+ * и сразу идёт в потоковый разбор {@link WeatherJson}, минуя byte[] и Rest Assured.
+ * <p>
+ * java.net.http держит постоянные соединения HTTP/1.1 сам; с http2 = true запросы
+ * мультиплексируются в одно соединение (https — через ALPN, http — через h2c upgrade,
+ * если сервер не умеет — остаётся HTTP/1.1). Байты по сети пишутся в общий {@link WireStats}.
+ */
+final class StreamingClient {
+
+    static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    @FunctionalInterface
+    interface Decoder<T> {
+        T decode(InputStream body) throws IOException;
+    }
+
+    private final String baseUrl;
+    private final String apiKey;
+    private final HttpClient http;
+    private final WireStats wireStats;
+
+    StreamingClient(String baseUrl, String apiKey, boolean http2, WireStats wireStats) {
+        this.baseUrl = baseUrl;
+        this.apiKey = apiKey;
+        this.wireStats = wireStats;
+        this.http = HttpClient.newBuilder()
+                .version(http2 ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(TIMEOUT)
+                .build();
+    }
+
+    ForecastColumns dailyForecast(String locationKey, int days) {
+        return get("/forecasts/v1/daily/{days}/{key}", WeatherJson::dailyColumns, days + "day", locationKey);
+    }
+
+    ForecastColumns hourlyForecast(String locationKey, int hours) {
+        return get("/forecasts/v1/hourly/{hours}/{key}", WeatherJson::periodColumns, hours + "hour", locationKey);
+    }
+
+    ForecastColumns quarterDayForecast(String locationKey) {
+        return get("/forecasts/v1/quarterday/{days}/{key}", WeatherJson::periodColumns, "1day", locationKey);
+    }
+
+    /**
+     * GET по шаблону пути с metric=true; path-параметры подставляются по порядку, как в Rest Assured.
+     *
+     * @throws IllegalStateException ответ не 200
+     */
+    <T> T get(String template, Decoder<T> decoder, Object... pathParams) {
+        String path = expand(template, pathParams);
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path
+                        + "?metric=true&apikey=" + URLEncoder.encode(apiKey, StandardCharsets.UTF_8)))
+                .header("Accept-Encoding", "gzip")
+                .timeout(TIMEOUT)
+                .GET()
+                .build();
+        WireStats.Counter counter = wireStats.counter(template);
+        try {
+            HttpResponse<InputStream> response = http.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            boolean gzip = response.headers().firstValue("Content-Encoding")
+                    .filter(encoding -> encoding.equalsIgnoreCase("gzip")).isPresent();
+            InputStream wire = WireStats.counting(response.body(), counter.wireBytes);
+            if (response.statusCode() != 200) {
+                try (wire) {
+                    wire.transferTo(OutputStream.nullOutputStream());
+                }
+                throw new IllegalStateException("HTTP " + response.statusCode() + " for " + path);
+            }
+            try (InputStream body = WireStats.counting(gzip ? new GZIPInputStream(wire) : wire, counter.decodedBytes)) {
+                // парсер закрывает свой источник; тело закрывается здесь, после дочитывания
+                T result = decoder.decode(new FilterInputStream(body) {
+                    @Override
+                    public void close() {
+                    }
+                });
+                // недочитанное тело не даёт вернуть соединение в пул
+                body.transferTo(OutputStream.nullOutputStream());
+                counter.responses.increment();
+                return result;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot fetch " + path, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while fetching " + path, e);
+        }
+    }
+
+    private static String expand(String template, Object... params) {
+        StringBuilder out = new StringBuilder(template.length() + 16);
+        int param = 0;
+        for (int i = 0; i < template.length(); i++) {
+            char c = template.charAt(i);
+            if (c != '{') {
+                out.append(c);
+                continue;
+            }
+            int end = template.indexOf('}', i);
+            out.append(URLEncoder.encode(String.valueOf(params[param++]), StandardCharsets.UTF_8));
+            i = end;
+        }
+        return out.toString();
+    }
+}
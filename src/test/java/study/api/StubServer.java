@@ -0,0 +1,228 @@
+package study.api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Лёгкая замена WireMock для нагрузки и бенчмарков: та же таблица {@link MockStub},
+ * но на JDK HttpServer и без сопоставления регулярными выражениями.
+ * <p>
+ * Маршруты собираются один раз в префиксное дерево по сегментам пути ({key} — сегмент из цифр).
+ * В листе — стабы в порядке выбора WireMock (приоритет, затем позже объявленный), условия
+ * на query сравниваются строками. Тела и их gzip-версии закодированы заранее;
+ * на запрос остаются разбор строки запроса и запись готовых байтов.
+ * Профили деградации и воспроизведение записей не поддерживаются — для них есть WireMock.
+ */
+final class StubServer implements AutoCloseable {
+
+    static {
+        // ответ — два write (заголовки, тело): без TCP_NODELAY маленькие ответы ждут delayed ACK
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    /** Готовый ответ стаба: тело как есть и сжатое. */
+    private static final class Route {
+        final MockStub stub;
+        final String[][] query;  // {name, value}; value null — любое
+        final byte[] body;
+        final byte[] gzipBody;
+
+        Route(MockStub stub) {
+            this.stub = stub;
+            this.query = new String[stub.query.size()][];
+            for (int i = 0; i < query.length; i++) {
+                String param = stub.query.get(i);
+                int eq = param.indexOf('=');
+                String value = param.substring(eq + 1);
+                query[i] = new String[] {param.substring(0, eq), "*".equals(value) ? null : value};
+            }
+            this.body = MockFixtures.bytes(stub.fixture);
+            this.gzipBody = gzip(body);
+        }
+
+        boolean matches(Map<String, String> params) {
+            if (!params.containsKey("apikey")) return false;
+            for (String[] condition : query) {
+                String actual = params.get(condition[0]);
+                if (actual == null || condition[1] != null && !condition[1].equals(actual)) return false;
+            }
+            return true;
+        }
+    }
+
+    private static final class Node {
+        final Map<String, Node> children = new HashMap<>();
+        Node key;                 // {key}
+        Route[] routes = new Route[0];
+    }
+
+    private static final Node ROOT = compile();
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    final LongAdder served = new LongAdder();
+    final LongAdder notFound = new LongAdder();
+
+    /** Запускает сервер на свободном порту loopback; обработчики — виртуальные потоки. */
+    StubServer() {
+        try {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot start stub server", e);
+        }
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    int port() {
+        return server.getAddress().getPort();
+    }
+
+    String baseUrl() {
+        return "http://localhost:" + port();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            Route route = "GET".equals(exchange.getRequestMethod())
+                    ? route(exchange.getRequestURI().getRawPath(), exchange.getRequestURI().getRawQuery())
+                    : null;
+            if (route == null) {
+                notFound.increment();
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+            byte[] body = gzip ? route.gzipBody : route.body;
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            if (gzip) exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+            served.increment();
+        }
+    }
+
+    /** @return первый подходящий стаб или null */
+    static MockStub match(String rawPath, String rawQuery) {
+        Route route = route(rawPath, rawQuery);
+        return route == null ? null : route.stub;
+    }
+
+    private static Route route(String rawPath, String rawQuery) {
+        Node node = ROOT;
+        int start = 1;
+        while (node != null && start <= rawPath.length()) {
+            int end = rawPath.indexOf('/', start);
+            if (end < 0) end = rawPath.length();
+            String segment = rawPath.substring(start, end);
+            Node literal = node.children.get(segment);
+            node = literal != null ? literal : isKey(segment) ? node.key : null;
+            start = end + 1;
+        }
+        if (node == null || node.routes.length == 0) return null;
+        Map<String, String> params = query(rawQuery);
+        for (Route route : node.routes) {
+            if (route.matches(params)) return route;
+        }
+        return null;
+    }
+
+    private static boolean isKey(String segment) {
+        if (segment.isEmpty()) return false;
+        for (int i = 0; i < segment.length(); i++) {
+            char c = segment.charAt(i);
+            if (c < '0' || c > '9') return false;
+        }
+        return true;
+    }
+
+    private static Map<String, String> query(String rawQuery) {
+        Map<String, String> params = new HashMap<>(8);
+        if (rawQuery == null) return params;
+        int start = 0;
+        while (start < rawQuery.length()) {
+            int end = rawQuery.indexOf('&', start);
+            if (end < 0) end = rawQuery.length();
+            int eq = rawQuery.indexOf('=', start);
+            if (eq < 0 || eq > end) eq = end;
+            params.putIfAbsent(decode(rawQuery.substring(start, eq)),
+                    eq < end ? decode(rawQuery.substring(eq + 1, end)) : "");
+            start = end + 1;
+        }
+        return params;
+    }
+
+    private static String decode(String s) {
+        return s.indexOf('%') < 0 && s.indexOf('+') < 0 ? s : URLDecoder.decode(s, StandardCharsets.UTF_8);
+    }
+
+    // ------- сборка маршрутов --------
+
+    private static Node compile() {
+        Node root = new Node();
+        Map<Node, List<Route>> leaves = new HashMap<>();
+        MockStub[] stubs = MockStub.values();
+        for (MockStub stub : stubs) {
+            Node node = root;
+            for (String segment : stub.path.substring(1).split("/")) {
+                if ("{key}".equals(segment)) {
+                    if (node.key == null) node.key = new Node();
+                    node = node.key;
+                } else {
+                    node = node.children.computeIfAbsent(segment, s -> new Node());
+                }
+            }
+            leaves.computeIfAbsent(node, n -> new ArrayList<>()).add(new Route(stub));
+        }
+        // как в WireMock: меньший priority раньше, при равном — объявленный позже
+        Comparator<Route> order = Comparator.<Route>comparingInt(r -> r.stub.priority)
+                .thenComparingInt(r -> -r.stub.ordinal());
+        leaves.forEach((node, routes) -> {
+            routes.sort(order);
+            node.routes = routes.toArray(Route[]::new);
+        });
+        return root;
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
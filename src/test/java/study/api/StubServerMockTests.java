@@ -0,0 +1,88 @@
+package study.api;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import io.restassured.response.Response;
+import org.junit.jupiter.api.*;
+
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Встроенная заглушка отвечает так же, как WireMock с той же таблицей {@link MockStub}.
+ */
+public class StubServerMockTests {
+
+    static final String DAILY = "/forecasts/v1/daily/{days}/{key}";
+
+    static WireMockServer wm;
+    static StubServer stub;
+
+    @BeforeAll
+    static void start() {
+        wm = new WireMockServer(options().dynamicPort());
+        wm.start();
+        MockStub.registerAll(wm);
+        stub = new StubServer();
+    }
+
+    @AfterAll
+    static void stop() {
+        stub.close();
+        wm.stop();
+    }
+
+    @Test @DisplayName("Every API call gets the same status and body as from WireMock")
+    void parityWithWireMock() {
+        AccuWeatherClient viaWireMock = new AccuWeatherClient("http://localhost:" + wm.port(), "TEST");
+        AccuWeatherClient viaStub = new AccuWeatherClient(stub.baseUrl(), "TEST");
+        long notFound = stub.notFound.sum();
+
+        for (ApiCall call : ApiCall.values()) {
+            Response expected = call.call(viaWireMock, "294021", "en-us");
+            Response actual = call.call(viaStub, "294021", "en-us");
+            assertThat(call.name(), actual.statusCode(), is(expected.statusCode()));
+            assertThat(call.name(), actual.asString(), is(expected.asString()));
+        }
+        assertThat(stub.notFound.sum(), is(notFound));
+    }
+
+    @Test @DisplayName("Routes follow WireMock priority and ordering")
+    void routingOrder() {
+        assertThat(StubServer.match("/currentconditions/v1/294021", "apikey=TEST&details=true"),
+                is(MockStub.CURRENT_CONDITIONS_DETAILS));
+        assertThat(StubServer.match("/currentconditions/v1/294021", "apikey=TEST"),
+                is(MockStub.CURRENT_CONDITIONS));
+        assertThat(StubServer.match("/currentconditions/v1/topcities/50", "apikey=TEST"),
+                is(MockStub.TOP_CITIES_CONDITIONS));
+        assertThat(StubServer.match("/currentconditions/v1/294021", null), nullValue());
+    }
+
+    @Test @DisplayName("Every stub in the table is reachable by its own request")
+    void noStubIsShadowed() {
+        for (MockStub stub : MockStub.values()) {
+            StringBuilder query = new StringBuilder("apikey=TEST");
+            for (String param : stub.query) query.append('&').append(param.replace("=*", "=x"));
+
+            assertThat(stub.name(), StubServer.match(stub.path.replace("{key}", "294021"), query.toString()), is(stub));
+        }
+    }
+
+    @Test @DisplayName("Gzip body is served pre-encoded on Accept-Encoding: gzip")
+    void servesGzip() {
+        WireStats stats = new WireStats();
+        StreamingClient client = new StreamingClient(stub.baseUrl(), "TEST", false, stats);
+
+        assertThat(client.dailyForecast("294021", 5).headline, is("Cold spell"));
+        assertThat(stats.wireBytes(DAILY), lessThan(stats.decodedBytes(DAILY)));
+    }
+
+    @Test @DisplayName("Unknown location key is a 404 with an empty body")
+    void unknownKeyIsNotFound() {
+        long before = stub.notFound.sum();
+        AccuWeatherClient client = new AccuWeatherClient(stub.baseUrl(), "TEST");
+
+        client.alerts("not-a-key").then().statusCode(404);
+        assertThat(stub.notFound.sum(), is(before + 1));
+    }
+}
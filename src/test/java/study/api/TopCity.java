@@ -0,0 +1,5 @@
+package study.api;
+
+/** Город из /locations/v1/topcities/{count}. */
+record TopCity(String key, String localizedName, String countryId) {
+}
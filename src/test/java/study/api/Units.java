@@ -0,0 +1,94 @@
+package study.api;
+
+/**
+ * Перевод метрических величин AccuWeather в имперские и обратно на месте, без второго запроса
+ * с metric=false. Каждая величина — линейное преобразование x·scale + offset, поэтому
+ * массовый перевод — простой цикл по float[], который JIT (C2) векторизует.
+ */
+final class Units {
+
+    private Units() {
+    }
+
+    /**
+     * Величины из ответов AccuWeather: метрическая и имперская единица, как в поле "Unit",
+     * и число знаков после запятой, с которым AccuWeather отдаёт значение в каждой из них.
+     */
+    enum Quantity {
+        TEMPERATURE("C", "F", 9.0 / 5, 32, 1, 1),
+        SPEED("km/h", "mi/h", 1 / 1.609344, 0, 1, 1),
+        DISTANCE("km", "mi", 1 / 1.609344, 0, 1, 1),
+        PRECIPITATION("mm", "in", 1 / 25.4, 0, 1, 2),
+        PRESSURE("mb", "inHg", 0.0295299830714, 0, 1, 2);
+
+        final String metricUnit;
+        final String imperialUnit;
+        private final double scale;
+        private final double offset;
+        final int metricDecimals;
+        final int imperialDecimals;
+
+        Quantity(String metricUnit, String imperialUnit, double scale, double offset,
+                 int metricDecimals, int imperialDecimals) {
+            this.metricUnit = metricUnit;
+            this.imperialUnit = imperialUnit;
+            this.scale = scale;
+            this.offset = offset;
+            this.metricDecimals = metricDecimals;
+            this.imperialDecimals = imperialDecimals;
+        }
+
+        double toImperial(double metric) {
+            return metric * scale + offset;
+        }
+
+        double toMetric(double imperial) {
+            return (imperial - offset) / scale;
+        }
+
+        /** dst[i] = toImperial(src[i]); src и dst могут совпадать. NaN остаётся NaN. */
+        void toImperial(float[] src, float[] dst, int length) {
+            affine(src, dst, length, (float) scale, (float) offset);
+        }
+
+        void toMetric(float[] src, float[] dst, int length) {
+            affine(src, dst, length, (float) (1 / scale), (float) (-offset / scale));
+        }
+
+        /** @return величина по единице измерения ("C", "mi/h"...), null — единица не из таблицы */
+        static Quantity of(String unit) {
+            for (Quantity q : values()) {
+                if (q.metricUnit.equals(unit) || q.imperialUnit.equals(unit)) return q;
+            }
+            return null;
+        }
+    }
+
+    // без ветвлений и вызовов в теле — цикл векторизуется
+    private static void affine(float[] src, float[] dst, int length, float scale, float offset) {
+        for (int i = 0; i < length; i++) {
+            dst[i] = src[i] * scale + offset;
+        }
+    }
+
+    /**
+     * Значение в имперских единицах, округлённое до точности AccuWeather для этой величины
+     * (дюймы осадков и давления — до сотых, остальное — до десятых); уже имперское или незнакомое — без изменений.
+     */
+    static Measure toImperial(Measure measure) {
+        Quantity q = measure == null ? null : Quantity.of(measure.unit());
+        if (q == null || !q.metricUnit.equals(measure.unit())) return measure;
+        return new Measure(round(q.toImperial(measure.value()), q.imperialDecimals), q.imperialUnit);
+    }
+
+    static Measure toMetric(Measure measure) {
+        Quantity q = measure == null ? null : Quantity.of(measure.unit());
+        if (q == null || !q.imperialUnit.equals(measure.unit())) return measure;
+        return new Measure(round(q.toMetric(measure.value()), q.metricDecimals), q.metricUnit);
+    }
+
+    private static double round(double value, int decimals) {
+        double factor = Math.pow(10, decimals);
+        return Math.round(value * factor) / factor;
+    }
+}
@@ -0,0 +1,47 @@
+package study.api;
+
+import org.junit.jupiter.api.*;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Перевод единиц AccuWeather: отдельные значения и массовый перевод массивов.
+ */
+public class UnitsTests {
+
+    @Test @DisplayName("Metric measures convert to imperial units used by AccuWeather")
+    void measuresToImperial() {
+        assertThat(Units.toImperial(new Measure(20, "C")), is(new Measure(68, "F")));
+        assertThat(Units.toImperial(new Measure(16.1, "km/h")), is(new Measure(10, "mi/h")));
+        assertThat(Units.toImperial(new Measure(25.4, "mm")), is(new Measure(1, "in")));
+        assertThat(Units.toImperial(new Measure(1, "mm")), is(new Measure(0.04, "in")));
+        assertThat(Units.toImperial(new Measure(1013, "mb")), is(new Measure(29.91, "inHg")));
+        assertThat(Units.toImperial(new Measure(10, "km")), is(new Measure(6.2, "mi")));
+    }
+
+    @Test @DisplayName("Imperial and unknown units pass through unchanged")
+    void passThrough() {
+        Measure fahrenheit = new Measure(68, "F");
+        Measure percent = new Measure(40, "%");
+
+        assertThat(Units.toImperial(fahrenheit), sameInstance(fahrenheit));
+        assertThat(Units.toImperial(percent), sameInstance(percent));
+        assertThat(Units.toMetric(fahrenheit), is(new Measure(20, "C")));
+        assertThat(Units.toMetric(new Measure(29.91, "inHg")), is(new Measure(1012.9, "mb")));
+    }
+
+    @Test @DisplayName("Bulk conversion round-trips whole arrays in place")
+    void bulkRoundTrip() {
+        float[] values = new float[1000];
+        for (int i = 0; i < values.length; i++) values[i] = i * 0.5f - 100;
+        float[] original = values.clone();
+
+        Units.Quantity.PRESSURE.toImperial(values, values, values.length);
+        Units.Quantity.PRESSURE.toMetric(values, values, values.length);
+
+        for (int i = 0; i < values.length; i++) {
+            assertThat((double) values[i], closeTo(original[i], 1e-3));
+        }
+    }
+}
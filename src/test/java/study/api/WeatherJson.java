@@ -0,0 +1,508 @@
+package study.api;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Потоковый разбор ответов AccuWeather в типизированные модели через Jackson {@link JsonParser}.
+ * Дерево объектов (как у GPath или ObjectMapper.readTree) не строится:
+ * нужные поля читаются по токенам, остальные пропускаются через skipChildren().
+ * JsonFactory потокобезопасна и переиспользует буферы парсеров.
+ */
+final class WeatherJson {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private WeatherJson() {
+    }
+
+    /** Получатель наблюдений без промежуточных объектов: примитивы прямо из потока токенов. */
+    @FunctionalInterface
+    interface ObservationSink {
+        /** @param weatherIcon код погоды AccuWeather (WeatherIcon, 1..44); 0 — нет в ответе */
+        void observation(long epochSeconds, float temperature, int weatherIcon);
+    }
+
+    /** Ответ /currentconditions/v1/{key}, .../topcities/{count} и historical — массив наблюдений. */
+    static List<CurrentCondition> currentConditions(byte[] json) {
+        try (JsonParser p = FACTORY.createParser(json)) {
+            expect(p, p.nextToken(), JsonToken.START_ARRAY);
+            List<CurrentCondition> result = new ArrayList<>();
+            while (p.nextToken() == JsonToken.START_OBJECT) {
+                result.add(currentCondition(p));
+            }
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot parse current conditions", e);
+        }
+    }
+
+    static DailyForecast dailyForecast(byte[] json) {
+        try (JsonParser p = FACTORY.createParser(json)) {
+            expect(p, p.nextToken(), JsonToken.START_OBJECT);
+            String headline = null;
+            List<DailyForecast.Day> days = new ArrayList<>();
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                JsonToken value = p.nextToken();
+                if ("Headline".equals(field) && value == JsonToken.START_OBJECT) {
+                    headline = textField(p, "Text");
+                } else if ("DailyForecasts".equals(field) && value == JsonToken.START_ARRAY) {
+                    while (p.nextToken() == JsonToken.START_OBJECT) {
+                        days.add(day(p));
+                    }
+                } else {
+                    p.skipChildren();
+                }
+            }
+            return new DailyForecast(headline, List.copyOf(days));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot parse daily forecast", e);
+        }
+    }
+
+    static List<TopCity> topCities(byte[] json) {
+        try (JsonParser p = FACTORY.createParser(json)) {
+            expect(p, p.nextToken(), JsonToken.START_ARRAY);
+            List<TopCity> result = new ArrayList<>();
+            while (p.nextToken() == JsonToken.START_OBJECT) {
+                String key = null, name = null, country = null;
+                while (p.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = p.currentName();
+                    JsonToken value = p.nextToken();
+                    switch (field) {
+                        case "Key": key = p.getValueAsString(); break;
+                        case "LocalizedName": name = p.getValueAsString(); break;
+                        case "Country":
+                            if (value == JsonToken.START_OBJECT) country = textField(p, "ID");
+                            break;
+                        default: p.skipChildren();
+                    }
+                }
+                result.add(new TopCity(key, name, country));
+            }
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot parse top cities", e);
+        }
+    }
+
+    /**
+     * Наблюдения из /currentconditions/v1/{key}[/historical/{hours}] — без записей и строк.
+     * Наблюдение без EpochTime или температуры пропускается.
+     *
+     * @return сколько наблюдений передано в sink
+     */
+    static int observations(byte[] json, ObservationSink sink) {
+        try (JsonParser p = FACTORY.createParser(json)) {
+            expect(p, p.nextToken(), JsonToken.START_ARRAY);
+            int count = 0;
+            while (p.nextToken() == JsonToken.START_OBJECT) {
+                long epoch = 0;
+                double temperature = Double.NaN;
+                int icon = 0;
+                while (p.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = p.currentName();
+                    JsonToken value = p.nextToken();
+                    if ("EpochTime".equals(field) && value.isNumeric()) epoch = p.getLongValue();
+                    else if ("WeatherIcon".equals(field) && value.isNumeric()) icon = p.getIntValue();
+                    else if ("Temperature".equals(field) && value == JsonToken.START_OBJECT) temperature = metricValue(p);
+                    else p.skipChildren();
+                }
+                if (epoch > 0 && !Double.isNaN(temperature)) {
+                    sink.observation(epoch, (float) temperature, icon);
+                    count++;
+                }
+            }
+            return count;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot parse observations", e);
+        }
+    }
+
+    /** Ответы /locations/v1/...: массив локаций или одна локация (геопозиция). */
+    static List<Location> locations(byte[] json) {
+        try (JsonParser p = FACTORY.createParser(json)) {
+            JsonToken start = p.nextToken();
+            List<Location> result = new ArrayList<>();
+            if (start == JsonToken.START_OBJECT) {
+                result.add(location(p));
+                return result;
+            }
+            expect(p, start, JsonToken.START_ARRAY);
+            while (p.nextToken() == JsonToken.START_OBJECT) {
+                result.add(location(p));
+            }
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot parse locations", e);
+        }
+    }
+
+    /** /alerts/v1/{key}: массив предупреждений; пустое тело (204) — пустой список. */
+    static List<Alert> alerts(byte[] json) {
+        if (json.length == 0) return List.of();
+        try (JsonParser p = FACTORY.createParser(json)) {
+            expect(p, p.nextToken(), JsonToken.START_ARRAY);
+            List<Alert> result = new ArrayList<>();
+            while (p.nextToken() == JsonToken.START_OBJECT) {
+                String id = null, description = null, severity = null, effective = null;
+                while (p.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = p.currentName();
+                    JsonToken value = p.nextToken();
+                    switch (field) {
+                        case "AlertID": id = p.getValueAsString(); break;
+                        case "Severity": severity = p.getValueAsString(); break;
+                        case "EffectiveDate": effective = p.getValueAsString(); break;
+                        case "Description":
+                            // в живом API — {"Localized": ..., "English": ...}, в фикстуре — строка
+                            description = value == JsonToken.START_OBJECT ? textField(p, "Localized") : p.getValueAsString();
+                            break;
+                        default: p.skipChildren();
+                    }
+                }
+                result.add(new Alert(id, description, severity, effective));
+            }
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot parse alerts", e);
+        }
+    }
+
+    /** /forecasts/v1/daily/{N}day/{key} в колоночную модель; строк на день не создаётся, кроме фраз. */
+    static ForecastColumns dailyColumns(byte[] json) {
+        try (JsonParser p = FACTORY.createParser(json)) {
+            return dailyColumns(p);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot parse daily forecast", e);
+        }
+    }
+
+    /** То же из потока — например, из распаковываемого на лету тела ответа {@link StreamingClient}. */
+    static ForecastColumns dailyColumns(InputStream json) throws IOException {
+        try (JsonParser p = FACTORY.createParser(json)) {
+            return dailyColumns(p);
+        }
+    }
+
+    /** /forecasts/v1/hourly/... и /quarterday/... — массив периодов — в колоночную модель. */
+    static ForecastColumns periodColumns(byte[] json) {
+        try (JsonParser p = FACTORY.createParser(json)) {
+            return periodColumns(p);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot parse forecast periods", e);
+        }
+    }
+
+    static ForecastColumns periodColumns(InputStream json) throws IOException {
+        try (JsonParser p = FACTORY.createParser(json)) {
+            return periodColumns(p);
+        }
+    }
+
+    private static ForecastColumns dailyColumns(JsonParser p) throws IOException {
+        expect(p, p.nextToken(), JsonToken.START_OBJECT);
+        ForecastColumns.Builder columns = new ForecastColumns.Builder();
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken value = p.nextToken();
+            if ("Headline".equals(field) && value == JsonToken.START_OBJECT) {
+                columns.headline(textField(p, "Text"));
+            } else if ("DailyForecasts".equals(field) && value == JsonToken.START_ARRAY) {
+                while (p.nextToken() == JsonToken.START_OBJECT) {
+                    period(p, columns);
+                }
+            } else {
+                p.skipChildren();
+            }
+        }
+        return columns.build();
+    }
+
+    private static ForecastColumns periodColumns(JsonParser p) throws IOException {
+        expect(p, p.nextToken(), JsonToken.START_ARRAY);
+        ForecastColumns.Builder columns = new ForecastColumns.Builder();
+        while (p.nextToken() == JsonToken.START_OBJECT) {
+            period(p, columns);
+        }
+        return columns.build();
+    }
+
+    // ------- объекты внутри массивов; парсер стоит на START_OBJECT --------
+
+    /**
+     * Один период прогноза: день из DailyForecasts, час или четверть суток.
+     * Epoch-поля предпочтительнее строковых дат; Temperature — {Value} или {Minimum, Maximum}.
+     * Wind.Speed и TotalLiquid (details=true) — на верхнем уровне у часа, в Day у дня.
+     */
+    private static void period(JsonParser p, ForecastColumns.Builder columns) throws IOException {
+        long epoch = 0;
+        String date = null, phrase = null, nightPhrase = null;
+        double min = Double.NaN, max = Double.NaN, precipitation = Double.NaN;
+        double wind = Double.NaN, liquid = Double.NaN;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken value = p.nextToken();
+            switch (field) {
+                case "EpochDate":
+                case "EpochDateTime":
+                    if (value.isNumeric()) epoch = p.getLongValue();
+                    break;
+                case "Date":
+                case "DateTime":
+                    date = p.getValueAsString();
+                    break;
+                case "IconPhrase": phrase = p.getValueAsString(); break;
+                case "PrecipitationProbability":
+                    if (value.isNumeric()) precipitation = p.getDoubleValue();
+                    break;
+                case "Wind":
+                    if (value == JsonToken.START_OBJECT) wind = windSpeed(p, columns);
+                    else p.skipChildren();
+                    break;
+                case "TotalLiquid":
+                    if (value == JsonToken.START_OBJECT) liquid = unitValue(p, columns::liquidUnit);
+                    else p.skipChildren();
+                    break;
+                case "Day":
+                    if (value != JsonToken.START_OBJECT) {
+                        p.skipChildren();
+                        break;
+                    }
+                    while (p.nextToken() == JsonToken.FIELD_NAME) {
+                        String inner = p.currentName();
+                        JsonToken v = p.nextToken();
+                        if ("IconPhrase".equals(inner)) phrase = p.getValueAsString();
+                        else if ("PrecipitationProbability".equals(inner) && v.isNumeric()) precipitation = p.getDoubleValue();
+                        else if ("Wind".equals(inner) && v == JsonToken.START_OBJECT) wind = windSpeed(p, columns);
+                        else if ("TotalLiquid".equals(inner) && v == JsonToken.START_OBJECT) liquid = unitValue(p, columns::liquidUnit);
+                        else p.skipChildren();
+                    }
+                    break;
+                case "Night":
+                    if (value == JsonToken.START_OBJECT) nightPhrase = textField(p, "IconPhrase");
+                    else p.skipChildren();
+                    break;
+                case "Temperature":
+                    if (value != JsonToken.START_OBJECT) {
+                        p.skipChildren();
+                        break;
+                    }
+                    while (p.nextToken() == JsonToken.FIELD_NAME) {
+                        String bound = p.currentName();
+                        JsonToken v = p.nextToken();
+                        if ("Value".equals(bound) && v.isNumeric()) min = max = p.getDoubleValue();
+                        else if ("Unit".equals(bound)) columns.unit(p.getValueAsString());
+                        else if ("Minimum".equals(bound) && v == JsonToken.START_OBJECT) min = boundValue(p, columns);
+                        else if ("Maximum".equals(bound) && v == JsonToken.START_OBJECT) max = boundValue(p, columns);
+                        else p.skipChildren();
+                    }
+                    break;
+                default: p.skipChildren();
+            }
+        }
+        if (epoch == 0 && date != null) epoch = epochSeconds(date);
+        columns.add(epoch, (float) min, (float) max, (float) precipitation,
+                (float) wind, (float) liquid, phrase, nightPhrase);
+    }
+
+    /** {"Value": -3, "Unit": "C"} → Value; единица уходит в колонки один раз. */
+    private static double boundValue(JsonParser p, ForecastColumns.Builder columns) throws IOException {
+        return unitValue(p, columns::unit);
+    }
+
+    /** {"Speed": {"Value": 11.1, "Unit": "km/h"}, "Direction": {...}} → Speed.Value. */
+    private static double windSpeed(JsonParser p, ForecastColumns.Builder columns) throws IOException {
+        double result = Double.NaN;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken value = p.nextToken();
+            if ("Speed".equals(field) && value == JsonToken.START_OBJECT) result = unitValue(p, columns::windSpeedUnit);
+            else p.skipChildren();
+        }
+        return result;
+    }
+
+    private static double unitValue(JsonParser p, Consumer<String> unit) throws IOException {
+        double result = Double.NaN;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken value = p.nextToken();
+            if ("Value".equals(field) && value.isNumeric()) result = p.getDoubleValue();
+            else if ("Unit".equals(field)) unit.accept(p.getValueAsString());
+            else p.skipChildren();
+        }
+        return result;
+    }
+
+    /** "2024-01-01" (полночь UTC) или "2024-01-01T07:00:00+03:00"; нераспознанная дата — 0. */
+    private static long epochSeconds(String date) {
+        try {
+            if (date.length() == 10) return LocalDate.parse(date).toEpochDay() * 86_400;
+            return OffsetDateTime.parse(date).toEpochSecond();
+        } catch (DateTimeParseException e) {
+            return 0;
+        }
+    }
+
+    private static Location location(JsonParser p) throws IOException {
+        String key = null, localized = null, english = null, country = null, postal = null;
+        double lat = Double.NaN, lon = Double.NaN;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken value = p.nextToken();
+            switch (field) {
+                case "Key": key = p.getValueAsString(); break;
+                case "LocalizedName": localized = p.getValueAsString(); break;
+                case "EnglishName": english = p.getValueAsString(); break;
+                case "PrimaryPostalCode": postal = p.getValueAsString(); break;
+                case "Country":
+                    if (value == JsonToken.START_OBJECT) country = textField(p, "ID");
+                    else p.skipChildren();
+                    break;
+                case "GeoPosition":
+                    if (value != JsonToken.START_OBJECT) {
+                        p.skipChildren();
+                        break;
+                    }
+                    while (p.nextToken() == JsonToken.FIELD_NAME) {
+                        String coordinate = p.currentName();
+                        JsonToken v = p.nextToken();
+                        if ("Latitude".equals(coordinate) && v.isNumeric()) lat = p.getDoubleValue();
+                        else if ("Longitude".equals(coordinate) && v.isNumeric()) lon = p.getDoubleValue();
+                        else p.skipChildren();
+                    }
+                    break;
+                default: p.skipChildren();
+            }
+        }
+        return new Location(key, localized, english, country, postal, lat, lon);
+    }
+
+    private static CurrentCondition currentCondition(JsonParser p) throws IOException {
+        String key = null, observedAt = null, text = null;
+        Measure temperature = null, realFeel = null;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken value = p.nextToken();
+            switch (field) {
+                case "Key": key = p.getValueAsString(); break;
+                case "LocalObservationDateTime": observedAt = p.getValueAsString(); break;
+                case "WeatherText": text = p.getValueAsString(); break;
+                case "Temperature": temperature = metric(p, value); break;
+                case "RealFeelTemperature": realFeel = metric(p, value); break;
+                default: p.skipChildren();
+            }
+        }
+        return new CurrentCondition(key, observedAt, text, temperature, realFeel);
+    }
+
+    private static DailyForecast.Day day(JsonParser p) throws IOException {
+        String date = null, dayPhrase = null, nightPhrase = null;
+        Measure min = null, max = null;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken value = p.nextToken();
+            if (value != JsonToken.START_OBJECT) {
+                if ("Date".equals(field)) date = p.getValueAsString();
+                else p.skipChildren();
+                continue;
+            }
+            switch (field) {
+                case "Temperature":
+                    while (p.nextToken() == JsonToken.FIELD_NAME) {
+                        String bound = p.currentName();
+                        JsonToken v = p.nextToken();
+                        if ("Minimum".equals(bound)) min = measure(p, v);
+                        else if ("Maximum".equals(bound)) max = measure(p, v);
+                        else p.skipChildren();
+                    }
+                    break;
+                case "Day": dayPhrase = textField(p, "IconPhrase"); break;
+                case "Night": nightPhrase = textField(p, "IconPhrase"); break;
+                default: p.skipChildren();
+            }
+        }
+        return new DailyForecast.Day(date, min, max, dayPhrase, nightPhrase);
+    }
+
+    // ------- мелкие блоки --------
+
+    /** {"Metric": {...}, "Imperial": {...}} → Metric. */
+    private static Measure metric(JsonParser p, JsonToken start) throws IOException {
+        if (start != JsonToken.START_OBJECT) return null;
+        Measure result = null;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken value = p.nextToken();
+            if ("Metric".equals(field)) result = measure(p, value);
+            else p.skipChildren();
+        }
+        return result;
+    }
+
+    /** Metric.Value из {"Metric": {"Value": ...}, "Imperial": {...}} без создания {@link Measure}. */
+    private static double metricValue(JsonParser p) throws IOException {
+        double result = Double.NaN;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken value = p.nextToken();
+            if (!"Metric".equals(field) || value != JsonToken.START_OBJECT) {
+                p.skipChildren();
+                continue;
+            }
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String inner = p.currentName();
+                JsonToken v = p.nextToken();
+                if ("Value".equals(inner) && v.isNumeric()) result = p.getDoubleValue();
+                else p.skipChildren();
+            }
+        }
+        return result;
+    }
+
+    /** {"Value": 2.3, "Unit": "C", ...} */
+    private static Measure measure(JsonParser p, JsonToken start) throws IOException {
+        if (start != JsonToken.START_OBJECT) return null;
+        double value = Double.NaN;
+        String unit = null;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken token = p.nextToken();
+            if ("Value".equals(field) && token.isNumeric()) value = p.getDoubleValue();
+            else if ("Unit".equals(field)) unit = p.getValueAsString();
+            else p.skipChildren();
+        }
+        return new Measure(value, unit);
+    }
+
+    /** Строковое поле объекта, остальные поля пропускаются; парсер стоит на START_OBJECT. */
+    private static String textField(JsonParser p, String name) throws IOException {
+        String result = null;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            p.nextToken();
+            if (name.equals(field)) result = p.getValueAsString();
+            else p.skipChildren();
+        }
+        return result;
+    }
+
+    private static void expect(JsonParser p, JsonToken actual, JsonToken expected) {
+        if (actual != expected) {
+            throw new IllegalStateException("Expected " + expected + " but was " + actual
+                    + " at " + p.currentLocation());
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package study.api;
+
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.entity.HttpEntityWrapper;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Байты тела ответа по шаблонам эндпоинтов: сколько пришло по сети (до распаковки gzip)
+ * и сколько получилось после. Заголовки HTTP и TLS не считаются.
+ * <p>
+ * Для Rest Assured счёт ведёт {@link #INTERCEPTOR} на уровне HttpClient — он оборачивает
+ * сырое тело раньше, чем Rest Assured подставит распаковку. Какому шаблону принадлежит ответ,
+ * интерцептор узнаёт от фильтра через ThreadLocal: запрос выполняется в потоке фильтра.
+ * {@link StreamingClient} считает сам, через {@link #counting}.
+ */
+final class WireStats implements Filter {
+
+    private static final ThreadLocal<Counter> CURRENT = new ThreadLocal<>();
+
+    /** Ставится в фабрику HttpClient до интерцепторов Rest Assured; без фильтра ничего не делает. */
+    static final HttpResponseInterceptor INTERCEPTOR = (response, context) -> {
+        Counter counter = CURRENT.get();
+        HttpEntity entity = response.getEntity();
+        if (counter == null || entity == null) return;
+        response.setEntity(new HttpEntityWrapper(entity) {
+            @Override
+            public InputStream getContent() throws IOException {
+                return counting(super.getContent(), counter.wireBytes);
+            }
+        });
+    };
+
+    static final class Counter {
+        final LongAdder responses = new LongAdder();
+        final LongAdder wireBytes = new LongAdder();
+        final LongAdder decodedBytes = new LongAdder();
+
+        /** @return доля сэкономленного трафика, 0 — сжатия не было */
+        double savedRatio() {
+            long decoded = decodedBytes.sum();
+            return decoded == 0 ? 0 : 1 - (double) wireBytes.sum() / decoded;
+        }
+    }
+
+    private final Map<String, Counter> byEndpoint = new ConcurrentHashMap<>();
+
+    @Override
+    public Response filter(FilterableRequestSpecification req, FilterableResponseSpecification res, FilterContext ctx) {
+        Counter counter = counter(req.getUserDefinedPath());
+        CURRENT.set(counter);
+        try {
+            Response response = ctx.next(req, res);
+            // тело читается здесь, пока счётчик ещё привязан к этому запросу
+            counter.decodedBytes.add(response.asByteArray().length);
+            counter.responses.increment();
+            return response;
+        } finally {
+            CURRENT.remove();
+        }
+    }
+
+    /** @param endpoint шаблон пути, например /forecasts/v1/daily/{days}/{key} */
+    Counter counter(String endpoint) {
+        return byEndpoint.computeIfAbsent(endpoint, e -> new Counter());
+    }
+
+    long wireBytes(String endpoint) {
+        Counter counter = byEndpoint.get(endpoint);
+        return counter == null ? 0 : counter.wireBytes.sum();
+    }
+
+    long decodedBytes(String endpoint) {
+        Counter counter = byEndpoint.get(endpoint);
+        return counter == null ? 0 : counter.decodedBytes.sum();
+    }
+
+    /** Таблица по эндпоинтам: ответы, байты по сети, байты после распаковки, экономия. */
+    String report() {
+        StringBuilder out = new StringBuilder(String.format("%-50s %8s %12s %12s %7s%n",
+                "endpoint", "count", "wire", "decoded", "saved"));
+        new TreeMap<>(byEndpoint).forEach((endpoint, c) -> out.append(String.format("%-50s %8d %12d %12d %6.1f%%%n",
+                endpoint, c.responses.sum(), c.wireBytes.sum(), c.decodedBytes.sum(), c.savedRatio() * 100)));
+        return out.toString();
+    }
+
+    static InputStream counting(InputStream in, LongAdder bytes) {
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) bytes.increment();
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int n = super.read(buffer, offset, length);
+                if (n > 0) bytes.add(n);
+                return n;
+            }
+
+            @Override
+            public long skip(long n) throws IOException {
+                long skipped = super.skip(n);
+                bytes.add(skipped);
+                return skipped;
+            }
+        };
+    }
+}